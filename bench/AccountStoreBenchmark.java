@@ -0,0 +1,92 @@
+package bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.models.Account;
+import main.models.OffHeapAccountStore;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares garbage collection pauses of heap <code>Account</code>s against
+ * <code>OffHeapAccount</code>s under the same deposits and withdrawals, which update
+ * balances and versions and grow the histories of the accounts. Run each backend in its own JVM
+ * so that one does not inherit the other's heap, for example
+ * <pre>
+ *     java -Xmx2g -cp out bench.AccountStoreBenchmark heap 200000 5000000
+ *     java -Xmx2g -cp out bench.AccountStoreBenchmark offheap 200000 5000000
+ * </pre>
+ * Arguments are the backend, the number of accounts and the number of transactions
+ */
+public class AccountStoreBenchmark {
+
+    private static final AtomicLong pauses = new AtomicLong();
+    private static final AtomicLong totalPauseMillis = new AtomicLong();
+    private static final AtomicLong maxPauseMillis = new AtomicLong();
+
+    public static void main(String[] args) {
+        String backend = args.length > 0 ? args[0] : "heap";
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long transactions = args.length > 2 ? Long.parseLong(args[2]) : 5_000_000L;
+
+        listenForPauses();
+        long start = System.nanoTime();
+
+        Account[] heapAccounts = null;
+        OffHeapAccountStore store = null;
+        if (backend.equals("heap")) {
+            heapAccounts = new Account[accounts];
+            for (int i = 0; i < accounts; i++) {
+                heapAccounts[i] = new Account(i);
+            }
+        } else {
+            store = new OffHeapAccountStore(accounts);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        BigDecimal deposit = new BigDecimal("1.25");
+        BigDecimal withdrawal = new BigDecimal("0.50");
+        for (long i = 0; i < transactions; i++) {
+            int id = random.nextInt(accounts);
+            Account account = heapAccounts != null ? heapAccounts[id] : store.getAccount(id);
+            if (random.nextInt(3) == 0 && withdrawal.compareTo(account.getBalance()) < 0) {
+                new Withdraw(withdrawal).execute(account);
+            } else {
+                new Deposit(deposit).execute(account);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("backend=" + backend
+                + " accounts=" + accounts
+                + " transactions=" + transactions
+                + " elapsedMs=" + elapsedMillis
+                + " gcPauses=" + pauses.get()
+                + " totalPauseMs=" + totalPauseMillis.get()
+                + " maxPauseMs=" + maxPauseMillis.get());
+    }
+
+    private static void listenForPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                long duration = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData())
+                        .getGcInfo()
+                        .getDuration();
+                pauses.incrementAndGet();
+                totalPauseMillis.addAndGet(duration);
+                maxPauseMillis.accumulateAndGet(duration, Math::max);
+            }, null, null);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package bench;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Transaction;
+import main.commands.transactions.Withdraw;
+import main.models.history.CompactHistoryCodec;
+import main.models.history.RecordCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reports the size per transaction of <code>CompactHistoryCodec</code> against
+ * <code>RecordCodec</code>, and how fast a compact history decodes sequentially and
+ * one block at a time. The optional argument is the number of transactions
+ */
+public class HistoryCodecBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Record> records = generateHistory(count);
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(plain)) {
+            for (Record record : records) {
+                RecordCodec.write(out, record);
+            }
+        }
+        byte[] compact = CompactHistoryCodec.encode(records);
+
+        System.out.printf("transactions=%d%n", count);
+        System.out.printf("plain bytes/txn=%.2f%n", (double) plain.size() / count);
+        System.out.printf("compact bytes/txn=%.2f%n", (double) compact.length / count);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Record> decoded = CompactHistoryCodec.decode(compact);
+            best = Math.min(best, System.nanoTime() - start);
+            if (decoded.size() != count) throw new AssertionError("decoded " + decoded.size());
+        }
+        System.out.printf("sequential decode=%.1f M txn/s%n", count / (best / 1e9) / 1e6);
+
+        SplittableRandom random = new SplittableRandom(7);
+        int blocks = (count + CompactHistoryCodec.BLOCK_SIZE - 1) / CompactHistoryCodec.BLOCK_SIZE;
+        int lookups = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            CompactHistoryCodec.decodeBlock(compact, random.nextInt(blocks));
+        }
+        System.out.printf("random block decode=%.2f us/block%n", (System.nanoTime() - start) / 1e3 / lookups);
+    }
+
+    /**
+     * Generates a history of deposits and withdrawals of up to $500, a few minutes to
+     * a few days apart, that never overdraws
+     */
+    private static List<Record> generateHistory(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Record> records = new ArrayList<>(count);
+        long time = 1_600_000_000_000L;
+        BigDecimal balance = BigDecimal.ZERO;
+
+        for (int i = 0; i < count; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 50_000), 2);
+            Transaction transaction;
+            if (random.nextInt(3) == 0 && amount.compareTo(balance) < 0) {
+                transaction = new Withdraw(amount);
+                balance = balance.subtract(amount);
+            } else {
+                transaction = new Deposit(amount);
+                balance = balance.add(amount);
+            }
+            time += random.nextLong(60_000, 3 * 86_400_000L);
+            transaction.datetime = new Date(time);
+            records.add(new Record(transaction, balance));
+        }
+        return records;
+    }
+}
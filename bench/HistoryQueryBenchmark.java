@@ -0,0 +1,56 @@
+package bench;
+
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.controllers.HistoryQuery;
+import main.models.Account;
+import main.models.history.InMemoryHistory;
+import main.models.history.IndexedHistory;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Compares <code>HistoryQuery</code> on an account with an <code>IndexedHistory</code>
+ * against the same account without one, for the largest 50 deposits and withdrawals over
+ * $10,000. The argument, optional, is the number of transactions, by default 1,000,000
+ */
+public class HistoryQueryBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int transactions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Account indexed = new Account(1, new IndexedHistory(new InMemoryHistory()));
+        Account scanned = new Account(2);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < transactions; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 1_200_000), 2);
+            boolean withdraw = random.nextInt(3) == 0 && amount.compareTo(scanned.getBalance()) < 0;
+            (withdraw ? new Withdraw(amount) : new Deposit(amount)).execute(indexed);
+            (withdraw ? new Withdraw(amount) : new Deposit(amount)).execute(scanned);
+        }
+
+        BigDecimal min = BigDecimal.valueOf(10_000);
+        for (Account account : new Account[] {scanned, indexed}) {
+            HistoryQuery query = new HistoryQuery(account);
+            String name = account == indexed ? "indexed" : "scanned";
+            report(name + " largest 50 deposits", () -> query.largest("DEPOSIT", 50).size());
+            report(name + " withdrawals over 10000", () -> query.over("WITHDRAW", min).size());
+        }
+    }
+
+    private static void report(String name, Supplier<Integer> query) {
+        int results = 0;
+        for (int i = 0; i < ROUNDS; i++) { // warm up
+            results = query.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            results = query.get();
+        }
+        System.out.printf("%s: %.3f ms (%d records)%n", name, (System.nanoTime() - start) / 1e6 / ROUNDS, results);
+    }
+}
@@ -0,0 +1,73 @@
+package bench;
+
+/**
+ * Fixed-size histogram of latencies in nanoseconds with about 6% precision, so that
+ * recording stays cheap and memory stays constant however long a run lasts. Each power
+ * of two is split into <code>SUB_BUCKETS</code> linear buckets
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        counts[bucket(Math.max(nanos, 0))]++;
+        total++;
+        max = Math.max(max, nanos);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return total;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the latency below which <code>percentile</code> percent of recorded latencies
+     * fall, rounded up to the end of its bucket
+     */
+    long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos); // position of highest bit, at least SUB_BUCKET_BITS
+        int subBucket = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (magnitude - SUB_BUCKET_BITS);
+        return (1L << magnitude) + (subBucket + 1) * width - 1;
+    }
+}
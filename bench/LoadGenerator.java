@@ -0,0 +1,256 @@
+package bench;
+
+import main.controllers.Controller;
+import main.models.Account;
+import main.views.View;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates concurrent customer sessions against <code>Controller</code> and
+ * <code>Account</code>, the way <code>main.Main</code> drives them, for load and soak
+ * testing without a console. Every session has its own <code>Controller</code>, input
+ * stream of generated amounts and output stream, and by default its own <code>Account</code>.
+ * Arguments, all optional, are
+ * <ol>
+ *     <li>the number of sessions, by default 8</li>
+ *     <li>how long to run, in seconds, by default 60</li>
+ *     <li>the mix of menu choices as weights, by default <code>D=40,W=35,P=20,Q=5</code></li>
+ *     <li>how often to report, in seconds, by default 10</li>
+ *     <li>the number of accounts shared by the sessions, by default 0 for an account
+ *     per session. Sessions over shared accounts contend for them, the way customers
+ *     of a joint account or tellers working on the same accounts do</li>
+ * </ol>
+ * Each report shows throughput and heap use; the final report adds p50, p99 and p999
+ * latency of menu choices and heap growth over the run. Since quitting exits the JVM,
+ * a <code>Q</code> is simulated as the customer leaving and a new customer starting a
+ * session in their place, with a new account, or another of the shared accounts
+ */
+public class LoadGenerator {
+
+    private static final String CHOICES = "DWPQ";
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        int[] weights = parseMix(args.length > 2 ? args[2] : "D=40,W=35,P=20,Q=5");
+        long reportSeconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        int accounts = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        Account[] shared = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            shared[i] = new Account();
+        }
+
+        AtomicLong operations = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Session> running = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            Session session = new Session(i, weights, deadline, operations, shared);
+            running.add(session);
+            session.start();
+        }
+
+        long start = System.nanoTime();
+        long startHeap = liveHeap();
+        long maxHeap = startHeap;
+        long previousOperations = 0;
+        long previousReport = start;
+        while (running.stream().anyMatch(Thread::isAlive)) {
+            Thread.sleep(reportSeconds * 1000);
+            long now = System.nanoTime();
+            long total = operations.get();
+            long heap = liveHeap();
+            maxHeap = Math.max(maxHeap, heap);
+            System.out.printf("t=%ds ops/s=%.0f liveHeapMB=%d usedHeapMB=%d%n",
+                    (now - start) / 1_000_000_000L,
+                    (total - previousOperations) / ((now - previousReport) / 1e9),
+                    heap >> 20,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20);
+            previousOperations = total;
+            previousReport = now;
+        }
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (Session session : running) {
+            session.join();
+            latencies.add(session.latencies);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long endHeap = liveHeap();
+        System.out.printf("sessions=%d accounts=%s operations=%d throughput=%.0f ops/s%n",
+                sessions, accounts > 0 ? String.valueOf(accounts) : "private",
+                latencies.getCount(), latencies.getCount() / elapsed);
+        System.out.printf("latency p50=%dus p99=%dus p999=%dus max=%dus%n",
+                latencies.getPercentile(50) / 1000,
+                latencies.getPercentile(99) / 1000,
+                latencies.getPercentile(99.9) / 1000,
+                latencies.getMax() / 1000);
+        System.out.printf("liveHeapMB start=%d end=%d max=%d growth=%d%n",
+                startHeap >> 20, endHeap >> 20, Math.max(maxHeap, endHeap) >> 20, (endHeap - startHeap) >> 20);
+    }
+
+    /**
+     * Parses a mix such as <code>D=40,W=35,P=20,Q=5</code> into weights
+     * in the order of <code>CHOICES</code>
+     */
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[CHOICES.length()];
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int choice = CHOICES.indexOf(pair[0].trim().toUpperCase());
+            if (choice < 0) {
+                throw new IllegalArgumentException("Unknown menu choice in mix: " + part);
+            }
+            weights[choice] = Integer.parseInt(pair[1].trim());
+        }
+        return weights;
+    }
+
+    /**
+     * Gets the heap in use after the most recent garbage collection, which
+     * unlike the heap in use now does not count garbage not yet collected.
+     * Before the first collection, this is the heap in use now
+     */
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                used += afterGc.getUsed();
+            }
+        }
+        return used > 0 ? used : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * One simulated customer at a time, picking menu choices by weight until the deadline
+     */
+    private static class Session extends Thread {
+        private final int[] weights;
+        private final int totalWeight;
+        private final long deadline;
+        private final AtomicLong operations;
+        private final SplittableRandom random;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final View view = View.getView(new PrintStream(OutputStream.nullOutputStream()));
+        private final Controller controller;
+        private final Account[] shared;
+
+        Session(int id, int[] weights, long deadline, AtomicLong operations, Account[] shared) {
+            super("session-" + id);
+            this.weights = weights;
+            this.totalWeight = Arrays.stream(weights).sum();
+            this.deadline = deadline;
+            this.operations = operations;
+            this.random = new SplittableRandom(id);
+            this.controller = new Controller(new AmountStream(id));
+            this.shared = shared;
+        }
+
+        @Override
+        public void run() {
+            Account account = nextAccount();
+            while (System.nanoTime() < deadline) {
+                String choice = String.valueOf(CHOICES.charAt(pick()));
+                long start = System.nanoTime();
+                if (choice.equals("Q")) {
+                    view.printGoodbyeMessage();
+                    account = nextAccount();
+                } else {
+                    view.displayMenu(controller.executeInput(choice, view, account));
+                }
+                latencies.record(System.nanoTime() - start);
+                operations.incrementAndGet();
+            }
+        }
+
+        /**
+         * Gets the account of a new customer, which is a new account unless
+         * the sessions share accounts
+         */
+        private Account nextAccount() {
+            return shared.length == 0 ? new Account() : shared[random.nextInt(shared.length)];
+        }
+
+        private int pick() {
+            int roll = random.nextInt(totalWeight);
+            for (int i = 0; i < weights.length; i++) {
+                roll -= weights[i];
+                if (roll < 0) {
+                    return i;
+                }
+            }
+            return weights.length - 1;
+        }
+    }
+
+    /**
+     * Endless input of amounts, one per line, as a customer would type them when
+     * asked for an amount to deposit or withdraw. Amounts are up to $500 with
+     * 0 to 2 decimal places
+     */
+    private static class AmountStream extends InputStream {
+        private final SplittableRandom random;
+        private byte[] line = new byte[0];
+        private int position;
+
+        AmountStream(long seed) {
+            random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                nextLine();
+            }
+            return line[position++];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int read = 0;
+            while (read < length) {
+                if (position == line.length) {
+                    if (read > 0) {
+                        break; // hand over whole lines, so reads stay small
+                    }
+                    nextLine();
+                }
+                int count = Math.min(length - read, line.length - position);
+                System.arraycopy(line, position, buffer, offset + read, count);
+                position += count;
+                read += count;
+            }
+            return read;
+        }
+
+        private void nextLine() {
+            long cents = random.nextLong(1, 50_000);
+            String amount;
+            switch (random.nextInt(3)) {
+            case 0:
+                amount = String.valueOf(cents / 100);
+                break;
+            case 1:
+                amount = (cents / 100) + "." + (cents % 100 / 10);
+                break;
+            default:
+                amount = String.format("%d.%02d", cents / 100, cents % 100);
+            }
+            line = (amount + "\n").getBytes();
+            position = 0;
+        }
+    }
+}
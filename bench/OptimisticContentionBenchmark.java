@@ -0,0 +1,56 @@
+package bench;
+
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.controllers.OptimisticRetry;
+import main.models.Account;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the conflict rate and throughput of <code>OptimisticRetry</code> as contention
+ * grows. Threads repeatedly pick an account at random and withdraw from it if it has
+ * enough money, or deposit to it otherwise; fewer accounts means more contention.
+ * Arguments are the number of threads and the number of operations per thread
+ */
+public class OptimisticContentionBenchmark {
+
+    private static final int[] ACCOUNT_COUNTS = {1, 4, 16, 256, 65536};
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        BigDecimal amount = new BigDecimal("10.00");
+
+        for (int accountCount : ACCOUNT_COUNTS) {
+            Account[] accounts = new Account[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accounts[i] = new Account(i);
+            }
+            OptimisticRetry retry = new OptimisticRetry(Integer.MAX_VALUE);
+
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                workers[t] = new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    for (int i = 0; i < perThread; i++) {
+                        retry.execute(accounts[random.nextInt(accountCount)], account ->
+                                account.getBalance().compareTo(amount) > 0 ? new Withdraw(amount) : new Deposit(amount));
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("threads=%d accounts=%d throughput=%.0f ops/s conflictRate=%.2f%%%n",
+                    threads, accountCount, threads * (double) perThread / seconds,
+                    100.0 * retry.getConflicts() / retry.getAttempts());
+        }
+    }
+}
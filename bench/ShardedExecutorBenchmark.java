@@ -0,0 +1,53 @@
+package bench;
+
+import main.commands.transactions.Deposit;
+import main.engine.ShardedExecutor;
+import main.models.AccountRegistry;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the throughput of <code>ShardedExecutor</code> for 1 shard up to the number of
+ * cores, with one producer thread per shard submitting deposits to random accounts.
+ * Arguments are the number of accounts and the number of deposits per producer
+ */
+public class ShardedExecutorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int perProducer = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        BigDecimal amount = new BigDecimal("0.01");
+
+        for (int shards = 1; shards <= cores; shards *= 2) {
+            AccountRegistry registry = new AccountRegistry();
+            for (int i = 0; i < accounts; i++) {
+                registry.open();
+            }
+
+            Thread[] producers = new Thread[shards];
+            long start = System.nanoTime();
+            try (ShardedExecutor executor = new ShardedExecutor(registry, shards)) {
+                for (int p = 0; p < shards; p++) {
+                    int seed = p;
+                    producers[p] = new Thread(() -> {
+                        SplittableRandom random = new SplittableRandom(seed);
+                        CompletableFuture<?> last = null;
+                        for (int i = 0; i < perProducer; i++) {
+                            last = executor.submit(1 + random.nextInt(accounts), new Deposit(amount));
+                        }
+                        last.join();
+                    });
+                    producers[p].start();
+                }
+                for (Thread producer : producers) {
+                    producer.join();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("shards=%d throughput=%.0f commands/s%n", shards, shards * perProducer / seconds);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import main.engine.StandingOrderScheduler;
+import main.models.AccountRegistry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Measures <code>StandingOrderScheduler</code> with a large number of monthly orders spread
+ * over the accounts of a registry: the time to schedule them, to cancel a share of them,
+ * and to run a month of them day by day. Arguments, all optional, are the number of
+ * orders, by default 2,000,000, and the number of accounts, by default 100,000. Give the
+ * JVM a heap large enough for the orders from the start, such as <code>-Xms3g</code>,
+ * or the times measured are mostly those of the heap growing
+ */
+public class StandingOrderBenchmark {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 0; i < accounts; i++) {
+            registry.open();
+        }
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        SplittableRandom random = new SplittableRandom(42);
+        BigDecimal amount = new BigDecimal("12.34");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            scheduler.schedule(1 + random.nextInt(accounts), "DEPOSIT", amount,
+                    random.nextLong(DAY, 31 * DAY), 30 * DAY);
+        }
+        long scheduled = System.nanoTime();
+        for (long id = 1; id <= orders; id += 10) {
+            scheduler.cancel(id);
+        }
+        long cancelled = System.nanoTime();
+        long executed = 0;
+        for (long day = 1; day <= 31; day++) {
+            do {
+                executed += scheduler.runDue(day * DAY).size();
+            } while (scheduler.isBehind());
+        }
+        long ran = System.nanoTime();
+
+        System.out.printf("schedule %.0f ns/order, cancel %.0f ns/order, run %.0f ns/transaction (%d executed)%n",
+                (double) (scheduled - start) / orders,
+                (double) (cancelled - scheduled) / ((orders + 9) / 10),
+                (double) (ran - cancelled) / executed, executed);
+    }
+}
@@ -3,18 +3,24 @@ package main;
 import main.commands.Record;
 import main.controllers.Controller;
 import main.models.Account;
+import main.replication.JournalPublisher;
 import main.views.View;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Scanner sc = new Scanner(System.in);
         Controller controller = new Controller();
         Account account = new Account();
         View ui = View.getView();
         Record prevCommand = null;
 
+        if (args.length == 2 && args[0].equals("--publish")) { // serve read replicas, see ReplicaMain
+            new JournalPublisher(account, Integer.parseInt(args[1]));
+        }
+
         while (prevCommand == null || !prevCommand.getAction().equals("QUIT")) {
             ui.displayMenu(prevCommand);
             String input = sc.nextLine();
@@ -1,5 +1,6 @@
 package main.commands;
 
+import main.events.CommandEvent;
 import main.models.Account;
 
 /**
@@ -25,7 +26,11 @@ public class Noop extends Command {
      */
     @Override
     public Record execute(Account account) {
-        return new Record(this, account.getBalance());
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Record record = new Record(this, account.getBalance());
+        event.commitFor(account, record);
+        return record;
     }
 
 }
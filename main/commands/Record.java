@@ -64,6 +64,17 @@ public class Record {
         return formatter.format(transaction.amount);
     }
 
+    /**
+     * Gets the unformatted monetary value of the <code>Transaction</code> encapsulated
+     * in this <code>Record</code>, for use in calculations. This should only be called
+     * after verifying <code>containsTransaction</code> is <code>true</code>
+     * @return The monetary value of the <code>Transaction</code>, in dollars
+     */
+    public BigDecimal getAmountValue() {
+        if (!this.containsTransaction()) return null;
+        return ((Transaction) command).amount;
+    }
+
     /**
      * Gets the date and time of the <code>Transaction</code> encapsulated in this
      * <code>Record</code>. This should only be called after verifying
@@ -91,4 +102,15 @@ public class Record {
         DecimalFormat formatter = new DecimalFormat("#0.00");
         return formatter.format(balance);
     }
+
+    /**
+     * Gets the unformatted balance of the account after the <code>Transaction</code>
+     * encapsulated in this <code>Record</code> completes, for use in calculations. This
+     * should only be called after verifying <code>containsTransaction</code> is <code>true</code>
+     * @return The balance of the account after the action completes, in dollars
+     */
+    public BigDecimal getBalanceValue() {
+        if (!this.containsTransaction()) return null;
+        return balance;
+    }
 }
@@ -1,8 +1,5 @@
 package main.commands.transactions;
 
-import main.commands.Record;
-import main.models.Account;
-
 import java.math.BigDecimal;
 import java.util.Date;
 
@@ -23,17 +20,13 @@ public class Deposit extends Transaction {
     }
 
     /**
-     * Executes the action of depositing the value specified in this object
-     * by incrementing the balance of <code>account</code>
-     * @param account The target account to deposit to
-     * @return A <code>Record</code> containing this <code>Transaction</code>.
-     * A <code>Transaction</code> is a <code>Command</code>
+     * Applies the action of depositing the value specified in this object
+     * by incrementing the balance
+     * @param balance The balance of the account before the action
+     * @return The balance of the account after the action
      */
     @Override
-    public Record execute(Account account) {
-        account.setBalance(account.getBalance().add(amount));
-        Record readOnlyRecord = new Record(this, account.getBalance());
-        account.setHistory(readOnlyRecord);
-        return readOnlyRecord;
+    protected BigDecimal apply(BigDecimal balance) {
+        return balance.add(amount);
     }
 }
@@ -0,0 +1,45 @@
+package main.commands.transactions;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Representation of an interest posting, which credits interest accrued
+ * over some period to an account
+ */
+public class Interest extends Transaction {
+
+    /**
+     * Initialises an <code>Interest</code> object representing the action of
+     * crediting some <code>amount</code> of accrued interest
+     * @param amount The amount of interest to be credited, in dollars
+     */
+    public Interest(BigDecimal amount) {
+        super.amount = amount;
+        super.action = "INTEREST";
+        super.datetime = new Date();
+    }
+
+    /**
+     * Initialises an <code>Interest</code> object representing the action of
+     * crediting some <code>amount</code> of interest accrued up to <code>datetime</code>
+     * @param amount The amount of interest to be credited, in dollars
+     * @param datetime The end of the period over which the interest accrued
+     */
+    public Interest(BigDecimal amount, Date datetime) {
+        super.amount = amount;
+        super.action = "INTEREST";
+        super.datetime = datetime;
+    }
+
+    /**
+     * Applies the action of crediting the interest specified in this object
+     * by incrementing the balance
+     * @param balance The balance of the account before the action
+     * @return The balance of the account after the action
+     */
+    @Override
+    protected BigDecimal apply(BigDecimal balance) {
+        return balance.add(amount);
+    }
+}
@@ -1,6 +1,10 @@
 package main.commands.transactions;
 
 import main.commands.Command;
+import main.commands.Noop;
+import main.commands.Record;
+import main.events.CommandEvent;
+import main.models.Account;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -13,4 +17,82 @@ public abstract class Transaction extends Command {
     public BigDecimal amount;
     public Date datetime;
 
+    /**
+     * Executes the transaction on <code>account</code>, waiting for any other
+     * transaction being executed on it to finish first
+     * @param account The target account of the transaction
+     * @return A <code>Record</code> containing this <code>Transaction</code>.
+     * A <code>Transaction</code> is a <code>Command</code>
+     */
+    @Override
+    public Record execute(Account account) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Record record = applyTo(account, account.beginWrite());
+        event.commitFor(account, record);
+        return record;
+    }
+
+    /**
+     * Executes the transaction on <code>account</code> only if the version of the account
+     * is still <code>expectedVersion</code>, that is if no transaction has been executed
+     * on it since the version was read. Fails immediately instead of waiting if the
+     * account has changed or another transaction is being executed on it
+     * @param account The target account of the transaction
+     * @param expectedVersion The value of <code>Account::getVersion</code> that the
+     *                        decision to execute this transaction was based on
+     * @return A <code>Record</code> containing this <code>Transaction</code> if it was
+     * executed, or containing a no-op <code>Command</code> if it was not
+     */
+    public Record execute(Account account, long expectedVersion) {
+        if (!account.tryBeginWrite(expectedVersion)) {
+            return new Noop().execute(account);
+        }
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Record record = applyTo(account, expectedVersion);
+        event.commitFor(account, record);
+        return record;
+    }
+
+    /**
+     * Gets the balance of an account after this transaction
+     * @param balance The balance of the account before this transaction
+     */
+    protected abstract BigDecimal apply(BigDecimal balance);
+
+    /**
+     * Updates any state of <code>account</code> besides its balance and history
+     * that depends on this transaction. Does nothing unless overridden
+     * @param account The target account of the transaction, after the transaction
+     *                has been applied to it
+     */
+    protected void applyToTotals(Account account) {}
+
+    /**
+     * Applies the transaction to <code>account</code>, which has been claimed for writing
+     * at <code>version</code>, and releases it. The transaction takes effect once its
+     * <code>Record</code> is in the history. If it fails before then, the balance is
+     * restored and the account is released at the same version, so that no version
+     * ever has a balance that does not follow from its history
+     */
+    private Record applyTo(Account account, long version) {
+        BigDecimal previousBalance = account.getBalance();
+        Record readOnlyRecord;
+        try {
+            account.setBalance(apply(previousBalance));
+            readOnlyRecord = new Record(this, account.getBalance());
+            account.setHistory(readOnlyRecord);
+        } catch (Throwable e) {
+            account.setBalance(previousBalance);
+            account.abortWrite(version);
+            throw e;
+        }
+        try {
+            applyToTotals(account);
+        } finally {
+            account.endWrite(version);
+        }
+        return readOnlyRecord;
+    }
 }
@@ -1,6 +1,5 @@
 package main.commands.transactions;
 
-import main.commands.Record;
 import main.models.Account;
 
 import java.math.BigDecimal;
@@ -23,17 +22,22 @@ public class Withdraw extends Transaction {
     }
 
     /**
-     * Executes the action of depositing the value specified in this object
-     * by decrementing the balance of <code>account</code>
-     * @param account The target account to withdraw from
-     * @return A <code>Record</code> containing this <code>Transaction</code>.
-     * A <code>Transaction</code> is a <code>Command</code>
+     * Applies the action of withdrawing the value specified in this object
+     * by decrementing the balance
+     * @param balance The balance of the account before the action
+     * @return The balance of the account after the action
      */
     @Override
-    public Record execute(Account account) {
-        account.setBalance(account.getBalance().subtract(amount));
-        Record readOnlyRecord = new Record(this, account.getBalance());
-        account.setHistory(readOnlyRecord);
-        return readOnlyRecord;
+    protected BigDecimal apply(BigDecimal balance) {
+        return balance.subtract(amount);
+    }
+
+    /**
+     * Adds this withdrawal to the running totals used for withdrawal limits
+     * @param account The account withdrawn from
+     */
+    @Override
+    protected void applyToTotals(Account account) {
+        account.recordWithdrawal(amount, datetime.getTime());
     }
 }
@@ -0,0 +1,59 @@
+package main.controllers;
+
+import main.commands.Record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one call to <code>InterestEngine::accrue</code>: the interest posted to
+ * each account, and the accounts not reached before the time budget ran out
+ */
+public class AccrualResult {
+
+    private final Map<Long, Record> posted = new HashMap<>();
+    private final List<Long> skipped = new ArrayList<>();
+
+    /**
+     * Gets the <code>Record</code> of the interest posted by this call, by account id.
+     * Accounts that earned no interest, or had already been credited for the period,
+     * are not included
+     */
+    public Map<Long, Record> getPosted() {
+        return Collections.unmodifiableMap(posted);
+    }
+
+    /**
+     * Gets the ids of the accounts skipped because the time budget ran out. Pass
+     * these accounts to <code>InterestEngine::accrue</code> again to finish the period
+     */
+    public List<Long> getSkippedAccounts() {
+        return Collections.unmodifiableList(skipped);
+    }
+
+    /**
+     * Evaluates to <code>true</code> if no account was skipped
+     */
+    public boolean isComplete() {
+        return skipped.isEmpty();
+    }
+
+    void addPosted(long accountId, Record record) {
+        posted.put(accountId, record);
+    }
+
+    void addSkipped(long accountId) {
+        skipped.add(accountId);
+    }
+
+    /**
+     * Adds the outcome of <code>other</code>, covering different accounts, to this one
+     */
+    void merge(AccrualResult other) {
+        posted.putAll(other.posted);
+        skipped.addAll(other.skipped);
+    }
+}
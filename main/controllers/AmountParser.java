@@ -0,0 +1,110 @@
+package main.controllers;
+
+/**
+ * Parser for monetary amounts entered by the user. An amount is valid if it is a plain
+ * decimal number, such as <code>200</code>, <code>0.5</code> or <code>+300.44</code>,
+ * that is positive and has at most 2 decimal places, not counting trailing zeros.
+ * <p>
+ * The amount is validated and converted to cents in a single pass over the input,
+ * without allocating or throwing. Invalid amounts are reported as one of the negative
+ * result codes of this class
+ */
+public class AmountParser {
+
+    /** Nothing was entered */
+    public static final long EMPTY = -1;
+
+    /** The input is not a plain decimal number */
+    public static final long NOT_A_NUMBER = -2;
+
+    /** The amount has more than 2 decimal places */
+    public static final long TOO_MANY_DECIMALS = -3;
+
+    /** The amount is zero or negative */
+    public static final long NOT_POSITIVE = -4;
+
+    /**
+     * The amount is valid, but too large to be counted in cents with a <code>long</code>.
+     * Such amounts must be converted with <code>BigDecimal</code> instead
+     */
+    public static final long TOO_LARGE = -5;
+
+    private static final long OVERFLOW_THRESHOLD = Long.MAX_VALUE / 10;
+
+    private AmountParser() {}
+
+    /**
+     * Validates <code>input</code> as an amount and converts it to cents
+     * @return The amount in cents if it is valid, which is always positive,
+     * or one of the negative result codes of this class otherwise
+     */
+    public static long parseCents(CharSequence input) {
+        int length = input.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+
+        int i = 0;
+        boolean negative = false;
+        char first = input.charAt(0);
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            i++;
+        }
+
+        long cents = 0;
+        boolean overflow = false;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        boolean tooManyDecimals = false;
+        int decimals = 0;
+
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == '.') {
+                if (seenPoint) {
+                    return NOT_A_NUMBER;
+                }
+                seenPoint = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return NOT_A_NUMBER;
+            }
+
+            seenDigit = true;
+            int digit = c - '0';
+            if (seenPoint && ++decimals > 2) {
+                tooManyDecimals |= digit != 0; // trailing zeros do not count as decimal places
+                continue;
+            }
+            if (cents > OVERFLOW_THRESHOLD || cents * 10 > Long.MAX_VALUE - digit) {
+                overflow = true;
+            } else {
+                cents = cents * 10 + digit;
+            }
+        }
+
+        if (!seenDigit) {
+            return NOT_A_NUMBER;
+        }
+        for (int missing = Math.min(decimals, 2); missing < 2; missing++) { // scale up to whole cents
+            if (cents > OVERFLOW_THRESHOLD) {
+                overflow = true;
+            } else {
+                cents *= 10;
+            }
+        }
+
+        if (negative) {
+            return NOT_POSITIVE;
+        }
+        if (tooManyDecimals) {
+            return TOO_MANY_DECIMALS;
+        }
+        if (overflow) {
+            return TOO_LARGE;
+        }
+        return cents == 0 ? NOT_POSITIVE : cents;
+    }
+}
@@ -5,13 +5,13 @@ import main.commands.Record;
 import main.commands.transactions.Deposit;
 import main.commands.Noop;
 import main.commands.transactions.Withdraw;
+import main.events.DispatchEvent;
 import main.models.Account;
 import main.views.View;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.util.HashMap;
-import java.util.InputMismatchException;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -20,7 +20,11 @@ import java.util.Scanner;
  */
 public class Controller {
 
-    private final Scanner sc = new Scanner(System.in);
+    private static final int WITHDRAWAL_ATTEMPTS = 16;
+
+    private final Scanner sc;
+    private final VelocityLimit velocityLimit;
+    private final OptimisticRetry withdrawals = new OptimisticRetry(WITHDRAWAL_ATTEMPTS);
 
     private static final Map<String, String> VALID_COMMANDS =
             new HashMap<>() {{
@@ -30,6 +34,33 @@ public class Controller {
                 put("QUIT","Q");
             }};
 
+    /**
+     * Creates a controller that reads amounts entered by the user from the console
+     */
+    public Controller() {
+        this(System.in);
+    }
+
+    /**
+     * Creates a controller that reads amounts entered by the user from <code>in</code>,
+     * for sessions that do not own the console
+     * @param in The input of the session
+     */
+    public Controller(InputStream in) {
+        this(in, VelocityLimit.NONE);
+    }
+
+    /**
+     * Creates a controller that reads amounts entered by the user from <code>in</code>,
+     * and refuses withdrawals beyond <code>velocityLimit</code>
+     * @param in The input of the session
+     * @param velocityLimit The limit on withdrawals within any 24 hours
+     */
+    public Controller(InputStream in, VelocityLimit velocityLimit) {
+        sc = new Scanner(in);
+        this.velocityLimit = velocityLimit;
+    }
+
     /**
      * Takes an input from the user and performs the appropriate actions to handle the request
      * @param input Input from the user as command line input
@@ -38,6 +69,18 @@ public class Controller {
      * @return A <code>Record</code> containing the <code>Command</code> that was executed
      */
     public Record executeInput(String input, View view, Account account) {
+        DispatchEvent event = new DispatchEvent(input);
+        event.begin();
+        Record record = dispatch(input, view, account);
+        event.commitFor(account, record);
+        return record;
+    }
+
+    /**
+     * Validates the user input and handles it if it is valid
+     * @return <code>Record</code> containing the <code>Command</code> that was executed
+     */
+    private Record dispatch(String input, View view, Account account) {
         input = sanitiseInput(input);
 
         if (!VALID_COMMANDS.containsValue(input)) {
@@ -76,25 +119,13 @@ public class Controller {
      */
     private Record beginDepositProcess(View view, Account account) {
         view.queryAmountDesired("deposit");
-        String input = sc.nextLine();
+        BigDecimal value = readAmount(view);
 
-        if (!inputIsNumeric(input)) { // verify if input is numeric
-            view.warnInvalidValue();
+        if (value == null) {
             return new Noop().execute(account);
         }
-
-        try {
-            BigDecimal value = new BigDecimal(input);
-            if (monetaryValueIsValid(value)) {
-                Deposit deposit = new Deposit(value);
-                return deposit.execute(account);
-            } else {
-                view.warnInvalidValue();
-            }
-        } catch (InputMismatchException e) {
-            view.warnInvalidValue();
-        }
-        return new Noop().execute(account);
+        Deposit deposit = new Deposit(value);
+        return deposit.execute(account);
     }
 
     /**
@@ -107,37 +138,55 @@ public class Controller {
      */
     private Record beginWithdrawalProcess(View view, Account account) {
         view.queryAmountDesired("withdraw");
-        String input = sc.nextLine();
+        BigDecimal value = readAmount(view);
 
-        if (!inputIsNumeric(input)) { // verify if input is numeric
-            view.warnInvalidValue();
+        if (value == null) {
             return new Noop().execute(account);
         }
-
-        try {
-            BigDecimal value = new BigDecimal(input);
-            if (monetaryValueIsValid(value) && withdrawValueIsValid(value, account)) {
-                Withdraw withdraw = new Withdraw(value);
-                return withdraw.execute(account);
-            } else {
-                view.warnInvalidValue();
+        Withdraw withdraw = new Withdraw(value);
+        long conflicts = withdrawals.getConflicts();
+        Record record = withdrawals.execute(account, current -> { // only withdraws at the version it checked
+            if (!withdrawValueIsValid(value, current)) {
+                view.warnOverdraft();
+                return null;
             }
-        } catch (InputMismatchException e) {
-            view.warnInvalidValue();
+            if (!withdrawValueIsWithinLimit(value, current)) {
+                view.warnVelocityLimit();
+                return null;
+            }
+            return withdraw;
+        });
+        if (withdrawals.getConflicts() - conflicts == WITHDRAWAL_ATTEMPTS) {
+            view.warnAccountBusy();
         }
-        return new Noop().execute(account);
+        return record;
     }
 
     /**
-     * Verifies if the input string is a numeric string
+     * Reads a monetary value from the user, which must be positive with at most 2 decimal
+     * places. If it is not, the reason is displayed on <code>view</code>
+     * @return The value read, or <code>null</code> if it was invalid
      */
-    private boolean inputIsNumeric(String input) {
-        try {
-            BigDecimal bd = new BigDecimal(input);
-        } catch (NumberFormatException e) {
-            return false;
+    private BigDecimal readAmount(View view) {
+        String input = sc.nextLine();
+        long cents = AmountParser.parseCents(input);
+
+        if (cents > 0) {
+            return BigDecimal.valueOf(cents, 2);
+        } else if (cents == AmountParser.TOO_LARGE) {
+            return new BigDecimal(input); // already validated, just too many cents for a long
+        } else if (cents == AmountParser.EMPTY) {
+            view.warnNoValue();
+        } else if (cents == AmountParser.NOT_A_NUMBER) {
+            view.warnValueNotNumeric();
+        } else if (cents == AmountParser.TOO_MANY_DECIMALS) {
+            view.warnTooManyDecimals();
+        } else if (cents == AmountParser.NOT_POSITIVE) {
+            view.warnValueNotPositive();
+        } else {
+            view.warnInvalidValue();
         }
-        return true;
+        return null;
     }
 
     /**
@@ -177,26 +226,18 @@ public class Controller {
     }
 
     /**
-     * Checks if <code>value</code> is a monetary value, which has 2 decimal places
-     * and is non-negative
-     */
-    private boolean monetaryValueIsValid(BigDecimal value) {
-        return value.compareTo(BigDecimal.ZERO) > 0 && hasTwoDecimal(value);
-    }
-
-    /**
-     * Verifies that a double has 2 decimal places at most
+     * Verifies that the user is allowed to withdraw <code>amount</code> from <code>account</code>
      */
-    private boolean hasTwoDecimal(BigDecimal input) {
-        BigInteger val = (input.multiply(BigDecimal.valueOf(100))).toBigInteger();
-        return input.multiply(BigDecimal.valueOf(100)).compareTo(new BigDecimal(val.toString())) == 0;
+    private boolean withdrawValueIsValid(BigDecimal amount, Account account) {
+        return amount.compareTo(account.getBalance()) < 0; //amount to withdraw less than balance
     }
 
     /**
-     * Verifies that the user is allowed to withdraw <code>amount</code> from <code>account</code>
+     * Verifies that withdrawing <code>amount</code> from <code>account</code> now keeps
+     * the withdrawals of the last 24 hours within the velocity limit
      */
-    private boolean withdrawValueIsValid(BigDecimal amount, Account account) {
-        return amount.compareTo(account.getBalance()) < 0; //amount to withdraw less than balance
+    private boolean withdrawValueIsWithinLimit(BigDecimal amount, Account account) {
+        return velocityLimit.allows(amount, account, System.currentTimeMillis());
     }
 
 
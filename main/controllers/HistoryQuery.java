@@ -0,0 +1,108 @@
+package main.controllers;
+
+import main.commands.Record;
+import main.models.Account;
+import main.models.history.HistoryIndex;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Queries over the transaction history of an <code>Account</code>, such as all withdrawals
+ * over some amount or the largest deposits. If the history is indexed, see
+ * <code>IndexedHistory</code>, only the matching <code>Record</code>s are visited;
+ * otherwise the history is scanned. Results are lists of <code>Record</code>s that
+ * can be displayed with <code>View::printStatement</code>
+ */
+public class HistoryQuery {
+
+    private final Account account;
+
+    /**
+     * @param account The account whose history is queried
+     */
+    public HistoryQuery(Account account) {
+        this.account = account;
+    }
+
+    /**
+     * Gets the <code>Record</code>s with action tag <code>action</code>, such as
+     * <code>DEPOSIT</code>, in history order
+     */
+    public List<Record> ofType(String action) {
+        return inRange(action, null, null);
+    }
+
+    /**
+     * Gets the <code>Record</code>s with action tag <code>action</code> and an amount from
+     * <code>min</code> to <code>max</code> inclusive, in history order
+     * @param min The smallest amount, or <code>null</code> for no lower bound
+     * @param max The largest amount, or <code>null</code> for no upper bound
+     */
+    public List<Record> inRange(String action, BigDecimal min, BigDecimal max) {
+        return inRange(action, min, true, max, true);
+    }
+
+    /**
+     * Gets the <code>Record</code>s with action tag <code>action</code> and an amount
+     * strictly greater than <code>min</code>, such as all withdrawals over $10,000,
+     * in history order
+     */
+    public List<Record> over(String action, BigDecimal min) {
+        return inRange(action, min, false, null, false);
+    }
+
+    private List<Record> inRange(String action, BigDecimal min, boolean minInclusive,
+                                 BigDecimal max, boolean maxInclusive) {
+        List<Record> history = account.getHistory();
+        HistoryIndex index = account.getHistoryIndex();
+        if (index != null) { // accounts without an index, such as those in an OffHeapAccountStore, are scanned
+            int[] positions = min == null && max == null
+                    ? index.positions(action, history.size())
+                    : index.positionsInRange(action, min, minInclusive, max, maxInclusive, history.size());
+            return select(history, positions);
+        }
+
+        List<Record> matches = new ArrayList<>();
+        for (Record record : history) {
+            if (record.getAction().equals(action)
+                    && isInRange(record.getAmountValue(), min, minInclusive, max, maxInclusive)) {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the <code>k</code> <code>Record</code>s with action tag <code>action</code>
+     * and the largest amounts, largest first
+     */
+    public List<Record> largest(String action, int k) {
+        List<Record> history = account.getHistory();
+        HistoryIndex index = account.getHistoryIndex();
+        if (index != null) {
+            return select(history, index.largest(action, k, history.size()));
+        }
+
+        List<Record> matches = inRange(action, null, null);
+        matches.sort(Comparator.comparing(Record::getAmountValue).reversed()); // stable, so ties stay in history order
+        return matches.subList(0, Math.min(k, matches.size()));
+    }
+
+    private static List<Record> select(List<Record> history, int[] positions) {
+        List<Record> records = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            records.add(history.get(position));
+        }
+        return records;
+    }
+
+    private static boolean isInRange(BigDecimal amount, BigDecimal min, boolean minInclusive,
+                                     BigDecimal max, boolean maxInclusive) {
+        int fromMin = min == null ? 1 : amount.compareTo(min);
+        int toMax = max == null ? -1 : amount.compareTo(max);
+        return (fromMin > 0 || (fromMin == 0 && minInclusive)) && (toMax < 0 || (toMax == 0 && maxInclusive));
+    }
+}
@@ -0,0 +1,240 @@
+package main.controllers;
+
+import main.commands.Record;
+import main.commands.transactions.Interest;
+import main.commands.transactions.Transaction;
+import main.models.Account;
+import main.models.AccountRegistry;
+import main.models.history.HistoryIndex;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Accrues interest over a period for every account in an <code>AccountRegistry</code>,
+ * splitting the accounts across a <code>ForkJoinPool</code>. Interest is calculated with
+ * the daily-balance method: the balance at the end of each day in the period is summed,
+ * and the sum is multiplied by the daily rate.
+ * <p>
+ * Interest for a period is posted at the end of the period, that is at the start of its
+ * last day (exclusive), and at most once per account: an account whose history already
+ * holds an <code>Interest</code> posting at that time is not credited again. A period cut
+ * short by its time budget can therefore be finished by accruing it again
+ */
+public class InterestEngine {
+
+    private static final int DAYS_IN_YEAR = 365;
+    private static final int ACCOUNTS_PER_TASK = 4096;
+    private static final int MONETARY_SCALE = 2;
+    private static final int POSTING_ATTEMPTS = 16;
+
+    private final BigDecimal annualRate;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine that runs on the common <code>ForkJoinPool</code>
+     * @param annualRate The annual interest rate, for example <code>0.025</code> for 2.5%
+     */
+    public InterestEngine(BigDecimal annualRate) {
+        this(annualRate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an engine that runs on <code>pool</code>
+     * @param annualRate The annual interest rate, for example <code>0.025</code> for 2.5%
+     * @param pool The pool on which accounts are processed
+     */
+    public InterestEngine(BigDecimal annualRate, ForkJoinPool pool) {
+        this.annualRate = annualRate;
+        this.pool = pool;
+    }
+
+    /**
+     * Accrues interest for the days from <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive) on every account in <code>registry</code>. See
+     * <code>accrue(List, LocalDate, LocalDate, Duration)</code>
+     */
+    public AccrualResult accrue(AccountRegistry registry, LocalDate from, LocalDate to, Duration budget) {
+        return accrue(registry.getAccounts(), from, to, budget);
+    }
+
+    /**
+     * Accrues interest for the days from <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive) on every account in <code>accounts</code>, and posts it to each account
+     * as an <code>Interest</code> transaction. Accounts that earn no interest, or have
+     * already been credited for the period, are left untouched. Regular transactions may
+     * continue on the accounts while this runs; each posting is atomic with respect to them.
+     * <p>
+     * Accounts still unprocessed when <code>budget</code> runs out are skipped, and
+     * listed in the result so that they can be accrued later
+     * @return The postings made and the accounts skipped by this call
+     */
+    public AccrualResult accrue(List<Account> accounts, LocalDate from, LocalDate to, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        Date periodEnd = Date.from(to.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        return pool.invoke(new AccrualTask(accounts, 0, accounts.size(), from, to, periodEnd, deadline));
+    }
+
+    /**
+     * Calculates the interest earned over the days from <code>from</code> (inclusive) to
+     * <code>to</code> (exclusive) using the daily-balance method. Each transaction counts
+     * from the day it is dated, whatever its place in the history, so postings dated
+     * earlier than transactions before them, such as standing orders caught up after a
+     * restart, are accounted for on their own day
+     * @param history Transaction history of the account, in the order the transactions
+     *                were executed, starting from a balance of 0
+     * @param annualRate The annual interest rate
+     * @return The interest earned, rounded to cents
+     */
+    public static BigDecimal dailyBalanceInterest(List<Record> history,
+                                                  LocalDate from,
+                                                  LocalDate to,
+                                                  BigDecimal annualRate) {
+        long startDay = from.toEpochDay();
+        long endDay = to.toEpochDay();
+        BigDecimal balance = BigDecimal.ZERO; // at the end of the day before the period
+        TreeMap<Long, BigDecimal> changes = new TreeMap<>(); // net change on each day of the period
+        BigDecimal previous = BigDecimal.ZERO;
+
+        for (Record record : history) {
+            if (!record.containsTransaction()) continue;
+
+            BigDecimal change = record.getBalanceValue().subtract(previous);
+            previous = record.getBalanceValue();
+            long day = toEpochDay(record);
+            if (day < startDay) {
+                balance = balance.add(change);
+            } else if (day < endDay) {
+                changes.merge(day, change, BigDecimal::add);
+            }
+        }
+
+        long cursor = startDay;
+        BigDecimal sumOfDailyBalances = BigDecimal.ZERO;
+        for (Map.Entry<Long, BigDecimal> change : changes.entrySet()) {
+            long day = change.getKey(); // days before this one closed on the previous balance
+            sumOfDailyBalances = sumOfDailyBalances.add(balance.multiply(BigDecimal.valueOf(day - cursor)));
+            balance = balance.add(change.getValue());
+            cursor = day;
+        }
+        if (endDay > cursor) {
+            sumOfDailyBalances = sumOfDailyBalances.add(balance.multiply(BigDecimal.valueOf(endDay - cursor)));
+        }
+
+        return sumOfDailyBalances.multiply(annualRate)
+                .divide(BigDecimal.valueOf(DAYS_IN_YEAR), MONETARY_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Evaluates to <code>true</code> if <code>history</code> holds an <code>Interest</code>
+     * posting made at <code>periodEnd</code>. Only the postings are visited if the history
+     * is indexed; otherwise the history is scanned from the latest record, where the
+     * posting for a recent period is found
+     * @param index The index of <code>history</code>, or <code>null</code> if it is not indexed
+     */
+    private static boolean isPosted(List<Record> history, HistoryIndex index, Date periodEnd) {
+        if (index != null) {
+            int[] postings = index.positions("INTEREST", history.size());
+            for (int i = postings.length - 1; i >= 0; i--) {
+                if (history.get(postings[i]).getDateTime().equals(periodEnd)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Record record = history.get(i);
+            if (record.getAction().equals("INTEREST") && record.getDateTime().equals(periodEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toEpochDay(Record record) {
+        return record.getDateTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Accrues interest for a contiguous range of accounts, splitting the range
+     * in half until it is small enough to process directly
+     */
+    private class AccrualTask extends RecursiveTask<AccrualResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Account> accounts;
+        private final int start;
+        private final int end;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Date periodEnd;
+        private final long deadline;
+
+        AccrualTask(List<Account> accounts, int start, int end,
+                    LocalDate from, LocalDate to, Date periodEnd, long deadline) {
+            this.accounts = accounts;
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+            this.periodEnd = periodEnd;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected AccrualResult compute() {
+            if (end - start <= ACCOUNTS_PER_TASK) {
+                return accrueDirectly();
+            }
+            int mid = (start + end) >>> 1;
+            AccrualTask left = new AccrualTask(accounts, start, mid, from, to, periodEnd, deadline);
+            AccrualTask right = new AccrualTask(accounts, mid, end, from, to, periodEnd, deadline);
+            left.fork();
+            AccrualResult result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+
+        private AccrualResult accrueDirectly() {
+            AccrualResult result = new AccrualResult();
+            OptimisticRetry retry = new OptimisticRetry(POSTING_ATTEMPTS);
+            for (int i = start; i < end; i++) {
+                Account account = accounts.get(i);
+                if (System.nanoTime() - deadline > 0) {
+                    result.addSkipped(account.getId());
+                    continue;
+                }
+                long conflicts = retry.getConflicts();
+                Record record = retry.execute(account, this::decide); // checks and posts at one version
+                if (record.containsTransaction()) {
+                    result.addPosted(account.getId(), record);
+                } else if (retry.getConflicts() - conflicts == POSTING_ATTEMPTS) {
+                    result.addSkipped(account.getId()); // kept changing under us, try it again later
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Decides the <code>Interest</code> to post to <code>account</code> for the period
+         * @return The posting, or <code>null</code> if there is nothing to post
+         */
+        private Transaction decide(Account account) {
+            List<Record> history = account.getHistory();
+            if (isPosted(history, account.getHistoryIndex(), periodEnd)) {
+                return null;
+            }
+            BigDecimal interest = dailyBalanceInterest(history, from, to, annualRate);
+            return interest.signum() > 0 ? new Interest(interest, periodEnd) : null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package main.controllers;
+
+import main.commands.Noop;
+import main.commands.Record;
+import main.commands.transactions.Transaction;
+import main.models.Account;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Executes read-decide-write workflows on an <code>Account</code> with optimistic
+ * concurrency. The decision is made from the state of the account at some version, and
+ * the resulting <code>Transaction</code> is only executed if the account is still at that
+ * version; otherwise the decision is made again from the new state. Attempts and
+ * conflicts are counted, so that the conflict rate under contention can be measured
+ */
+public class OptimisticRetry {
+
+    private static final int SPINS_BEFORE_YIELDING = 4;
+
+    private final int maxAttempts;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * @param maxAttempts Maximum number of times a decision is made and tried
+     *                    before giving up
+     */
+    public OptimisticRetry(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Executes the <code>Transaction</code> that <code>decision</code> returns for
+     * <code>account</code>, provided the account does not change in between
+     * @param decision Reads the account and returns the <code>Transaction</code> to execute
+     *                 on it, or <code>null</code> to execute nothing, for example if the
+     *                 balance is too low for a withdrawal
+     * @return A <code>Record</code> containing the <code>Transaction</code> executed, or
+     * containing a no-op <code>Command</code> if <code>decision</code> returned <code>null</code>
+     * or every attempt conflicted with another transaction
+     */
+    public Record execute(Account account, Function<Account, Transaction> decision) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            long version = account.getVersion();
+            Transaction transaction = decision.apply(account);
+            if (transaction == null) {
+                return new Noop().execute(account);
+            }
+
+            attempts.increment();
+            Record record = transaction.execute(account, version);
+            if (record.containsTransaction()) {
+                return record;
+            }
+            conflicts.increment();
+            if (attempt < SPINS_BEFORE_YIELDING) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield(); // the other writer may have been descheduled mid-transaction
+            }
+        }
+        return new Noop().execute(account);
+    }
+
+    /**
+     * Gets the number of conditional executions tried so far
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Gets the number of conditional executions so far that failed because the
+     * account had changed
+     */
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+}
@@ -0,0 +1,45 @@
+package main.controllers;
+
+import main.models.Account;
+import main.models.WithdrawalWindow;
+
+import java.math.BigDecimal;
+
+/**
+ * Limit on how much may be withdrawn from an account, and how many times, within
+ * a rolling window of 24 hours. Checked against the running totals kept by the
+ * account, so a check takes constant time however long the history of the account is
+ */
+public class VelocityLimit {
+
+    /** No limit on withdrawals */
+    public static final VelocityLimit NONE = new VelocityLimit(null, Integer.MAX_VALUE);
+
+    private final BigDecimal maxAmount;
+    private final int maxCount;
+
+    /**
+     * @param maxAmount Maximum total amount withdrawn within 24 hours, or
+     *                  <code>null</code> for no limit on the amount
+     * @param maxCount Maximum number of withdrawals within 24 hours
+     */
+    public VelocityLimit(BigDecimal maxAmount, int maxCount) {
+        this.maxAmount = maxAmount;
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * Verifies that withdrawing <code>amount</code> from <code>account</code> at
+     * <code>nowMillis</code> keeps the account within this limit
+     */
+    public boolean allows(BigDecimal amount, Account account, long nowMillis) {
+        WithdrawalWindow window = account.getWithdrawalWindow();
+        int count = window == null ? 0 : window.getCount(nowMillis);
+        BigDecimal total = window == null ? BigDecimal.ZERO : window.getAmount(nowMillis);
+
+        if (count >= maxCount) {
+            return false;
+        }
+        return maxAmount == null || total.add(amount).compareTo(maxAmount) <= 0;
+    }
+}
@@ -0,0 +1,91 @@
+package main.engine;
+
+import main.commands.Command;
+import main.commands.Record;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring buffer of <code>Command</code>s with any number of producers and a single
+ * consumer. Slots are allocated once, up front, and reused; each slot carries a sequence
+ * number that tells producers and the consumer whose turn it is to use it, so neither
+ * side takes a lock
+ */
+class CommandRing {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // only touched by the consumer
+
+    /**
+     * @param capacity Number of slots, which must be a power of two
+     */
+    CommandRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two");
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a <code>Command</code> to execute on the account <code>accountId</code>
+     * @return <code>false</code> if the ring is full
+     */
+    boolean offer(long accountId, Command command, CompletableFuture<Record> result) {
+        while (true) {
+            long position = tail.get();
+            Slot slot = slots[(int) (position & mask)];
+            long difference = slot.sequence - position;
+            if (difference < 0) {
+                return false; // the consumer has not freed this slot from the previous lap
+            }
+            if (difference == 0 && tail.compareAndSet(position, position + 1)) {
+                slot.accountId = accountId;
+                slot.command = command;
+                slot.result = result;
+                slot.sequence = position + 1; // publishes the fields above to the consumer
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the next published slot without removing it. Only to be called by the consumer
+     * @return The slot, or <code>null</code> if the ring is empty
+     */
+    Slot peek() {
+        Slot slot = slots[(int) (head & mask)];
+        return slot.sequence == head + 1 ? slot : null;
+    }
+
+    /**
+     * Frees the slot returned by the last <code>peek</code> for producers to reuse.
+     * Only to be called by the consumer
+     */
+    void release(Slot slot) {
+        slot.command = null;
+        slot.result = null;
+        slot.sequence = head + slots.length;
+        head++;
+    }
+
+    /**
+     * Entry of the ring
+     */
+    static final class Slot {
+        volatile long sequence;
+        long accountId;
+        Command command;
+        CompletableFuture<Record> result;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
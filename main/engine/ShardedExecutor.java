@@ -0,0 +1,161 @@
+package main.engine;
+
+import main.commands.Command;
+import main.commands.Record;
+import main.models.Account;
+import main.models.AccountRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executes <code>Command</code>s on the accounts of an <code>AccountRegistry</code> using
+ * a fixed number of shard threads. Account <code>id</code> belongs to shard
+ * <code>id % shards</code>, and only that shard's thread ever executes commands on it, so
+ * commands on one account run one at a time in submission order without contending for
+ * the account. Each shard consumes commands from its own preallocated <code>CommandRing</code>
+ * in batches, to keep the thread on a hot cache between commands
+ */
+public class ShardedExecutor implements AutoCloseable {
+
+    private static final int RING_CAPACITY = 1 << 14;
+    private static final int BATCH_SIZE = 256;
+    private static final int SPINS_BEFORE_PARKING = 1000;
+    private static final long PARK_NANOS = 50_000;
+
+    private final AccountRegistry registry;
+    private final CommandRing[] rings;
+    private final Thread[] threads;
+    private final AtomicInteger[] submitting; // producers of each shard between checking running and offering
+    private volatile boolean running = true;
+
+    /**
+     * Starts <code>shards</code> shard threads executing commands on accounts of <code>registry</code>
+     */
+    public ShardedExecutor(AccountRegistry registry, int shards) {
+        this.registry = registry;
+        this.rings = new CommandRing[shards];
+        this.threads = new Thread[shards];
+        this.submitting = new AtomicInteger[shards];
+        for (int i = 0; i < shards; i++) {
+            CommandRing ring = new CommandRing(RING_CAPACITY);
+            AtomicInteger producers = new AtomicInteger();
+            rings[i] = ring;
+            submitting[i] = producers;
+            threads[i] = new Thread(() -> consume(ring, producers), "shard-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Queues <code>command</code> for execution on the account with id <code>accountId</code>.
+     * If the shard's ring is full, waits for space
+     * @return A future completed with the <code>Record</code> returned by
+     * <code>Command::execute</code>, or completed exceptionally if there is no such
+     * account or the command throws
+     * @throws IllegalStateException if the executor has been closed
+     */
+    public CompletableFuture<Record> submit(long accountId, Command command) {
+        int shard = (int) Math.floorMod(accountId, (long) rings.length);
+        AtomicInteger producers = submitting[shard];
+        producers.incrementAndGet(); // before checking running, so the shard waits for this command
+        try {
+            if (!running) {
+                throw new IllegalStateException("Executor has been closed");
+            }
+            CompletableFuture<Record> result = new CompletableFuture<>();
+            while (!rings[shard].offer(accountId, command, result)) {
+                Thread.onSpinWait();
+            }
+            return result;
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of shards
+     */
+    public int getShards() {
+        return rings.length;
+    }
+
+    /**
+     * Stops accepting commands, finishes the ones already queued and stops the shard
+     * threads. If interrupted while waiting, still waits, and then restores the interrupt
+     */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            LockSupport.unpark(thread);
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main loop of a shard thread. Executes up to <code>BATCH_SIZE</code> queued commands
+     * at a time, spinning briefly and then parking when there is nothing to do. After
+     * <code>close</code>, keeps going until no producer can still be offering a command
+     */
+    private void consume(CommandRing ring, AtomicInteger producers) {
+        int idle = 0;
+        while (true) {
+            int executed = 0;
+            CommandRing.Slot slot;
+            while (executed < BATCH_SIZE && (slot = ring.peek()) != null) {
+                execute(slot);
+                ring.release(slot);
+                executed++;
+            }
+
+            if (executed > 0) {
+                idle = 0;
+            } else if (!running && producers.get() == 0) {
+                executeRemaining(ring); // any producer arriving from now on sees the executor closed
+                return;
+            } else if (++idle < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    private void execute(CommandRing.Slot slot) {
+        Account account = registry.get(slot.accountId);
+        if (account == null) {
+            slot.result.completeExceptionally(new IllegalArgumentException("No account with id " + slot.accountId));
+            return;
+        }
+        try {
+            slot.result.complete(slot.command.execute(account));
+        } catch (Throwable e) { // even an Error must not kill the shard and strand its futures
+            slot.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executes every command still queued on <code>ring</code>, which includes any offered
+     * after the last batch by a producer that got past the check of <code>running</code>
+     */
+    private void executeRemaining(CommandRing ring) {
+        CommandRing.Slot slot;
+        while ((slot = ring.peek()) != null) {
+            execute(slot);
+            ring.release(slot);
+        }
+    }
+}
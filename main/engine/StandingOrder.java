@@ -0,0 +1,98 @@
+package main.engine;
+
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Transaction;
+import main.commands.transactions.Withdraw;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * A deposit or withdrawal to be executed on an account at a set time, and optionally
+ * repeated at a fixed interval after that, such as a monthly salary credit
+ */
+public class StandingOrder {
+
+    private final long id;
+    private final long accountId;
+    private final String action;
+    private final BigDecimal amount;
+    private final long periodMillis;
+    private long dueMillis;
+
+    /**
+     * @param id The id of the order within its scheduler
+     * @param accountId The id of the account to execute the order on
+     * @param action <code>DEPOSIT</code> or <code>WITHDRAW</code>
+     * @param amount The amount of each transaction, in dollars
+     * @param dueMillis The time of the first transaction
+     * @param periodMillis The time between transactions, or 0 to execute the order once
+     */
+    StandingOrder(long id, long accountId, String action, BigDecimal amount, long dueMillis, long periodMillis) {
+        if (!action.equals("DEPOSIT") && !action.equals("WITHDRAW")) {
+            throw new IllegalArgumentException("Standing orders can only deposit or withdraw: " + action);
+        }
+        this.id = id;
+        this.accountId = accountId;
+        this.action = action;
+        this.amount = amount;
+        this.dueMillis = dueMillis;
+        this.periodMillis = periodMillis;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the time of the next transaction
+     */
+    public long getDueMillis() {
+        return dueMillis;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    boolean isRecurring() {
+        return periodMillis > 0;
+    }
+
+    /**
+     * Moves the order on to its next transaction
+     */
+    void advance() {
+        dueMillis += periodMillis;
+    }
+
+    /**
+     * Creates a one-off order for the current occurrence of this order, which is
+     * unaffected by moving this order on
+     */
+    StandingOrder occurrence() {
+        return new StandingOrder(id, accountId, action, amount, dueMillis, 0);
+    }
+
+    /**
+     * Creates the <code>Transaction</code> for the current occurrence of the order,
+     * dated when it fell due rather than when it is executed
+     */
+    Transaction toTransaction() {
+        Transaction transaction = action.equals("DEPOSIT") ? new Deposit(amount) : new Withdraw(amount);
+        transaction.datetime = new Date(dueMillis);
+        return transaction;
+    }
+}
@@ -0,0 +1,275 @@
+package main.engine;
+
+import main.commands.Record;
+import main.commands.transactions.Transaction;
+import main.controllers.OptimisticRetry;
+import main.controllers.VelocityLimit;
+import main.models.Account;
+import main.models.AccountRegistry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes <code>StandingOrder</code>s on the accounts of an <code>AccountRegistry</code>
+ * when they fall due. Pending orders are held in a <code>TimerWheel</code>, so scheduling
+ * and cancelling take constant time even with millions of orders. Due orders are executed
+ * in batches by <code>runDue</code> through <code>Transaction::execute</code>, so they are
+ * recorded in the account history like any other transaction, dated when they fell due.
+ * As in <code>Controller</code>, a withdrawal is only executed if it is less than the
+ * balance and within the <code>VelocityLimit</code>; otherwise a no-op <code>Command</code>
+ * is recorded in its place and the order stays in force. A withdrawal that keeps
+ * conflicting with other transactions on the account is retried by the next
+ * <code>runDue</code>.
+ * <p>
+ * Due orders are taken off the wheel under the lock of the scheduler, but executed
+ * outside it, so that scheduling and cancelling are not held up by transactions.
+ * An order cancelled while its occurrence is being executed may still execute that once.
+ * <p>
+ * Pending orders can be saved and loaded again, so that they survive a restart. An order
+ * that fell due while the program was not running is executed by the first
+ * <code>runDue</code> after loading, once for each occurrence missed
+ */
+public class StandingOrderScheduler {
+
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+    /** The most occurrences executed by one call to <code>runDue</code> */
+    public static final int MAX_BATCH = 10_000;
+
+    private static final int FORMAT_VERSION = 2; // 2 added occurrences to retry
+    private static final int WITHDRAW_ATTEMPTS = 16;
+
+    private final AccountRegistry registry;
+    private final VelocityLimit velocityLimit;
+    private final TimerWheel<StandingOrder> wheel;
+    private final Map<Long, TimerWheel.Timeout<StandingOrder>> pending = new HashMap<>();
+    private final List<StandingOrder> retries = new ArrayList<>(); // occurrences whose withdrawal kept conflicting
+    private final OptimisticRetry retry = new OptimisticRetry(WITHDRAW_ATTEMPTS);
+    private final Object executing = new Object(); // keeps batches, and so occurrences of an order, in order
+    private long nextId = 1;
+    private boolean behind; // the last batch was cut short by MAX_BATCH
+
+    /**
+     * Creates a scheduler with no orders, which checks for due orders to the second
+     * @param startMillis The current time
+     */
+    public StandingOrderScheduler(AccountRegistry registry, long startMillis) {
+        this(registry, DEFAULT_TICK_MILLIS, startMillis);
+    }
+
+    /**
+     * Creates a scheduler with no orders
+     * @param tickMillis The length of a tick of the <code>TimerWheel</code>, which
+     *                   is how late an order may be executed
+     * @param startMillis The current time
+     */
+    public StandingOrderScheduler(AccountRegistry registry, long tickMillis, long startMillis) {
+        this(registry, tickMillis, startMillis, VelocityLimit.NONE);
+    }
+
+    /**
+     * Creates a scheduler with no orders, which refuses withdrawals beyond
+     * <code>velocityLimit</code> like a <code>Controller</code> does
+     * @param tickMillis The length of a tick of the <code>TimerWheel</code>, which
+     *                   is how late an order may be executed
+     * @param startMillis The current time
+     * @param velocityLimit The limit on withdrawals within any 24 hours
+     */
+    public StandingOrderScheduler(AccountRegistry registry, long tickMillis, long startMillis,
+                                  VelocityLimit velocityLimit) {
+        this.registry = registry;
+        this.velocityLimit = velocityLimit;
+        this.wheel = new TimerWheel<>(tickMillis, startMillis);
+    }
+
+    /**
+     * Schedules a deposit or withdrawal on the account with id <code>accountId</code>
+     * @param action <code>DEPOSIT</code> or <code>WITHDRAW</code>
+     * @param amount The amount of each transaction, in dollars
+     * @param dueMillis The time of the first transaction
+     * @param periodMillis The time between transactions, or 0 to execute the order once
+     * @return The id of the order, for cancelling it
+     */
+    public synchronized long schedule(long accountId, String action, BigDecimal amount,
+                                      long dueMillis, long periodMillis) {
+        StandingOrder order = new StandingOrder(nextId++, accountId, action, amount, dueMillis, periodMillis);
+        pending.put(order.getId(), wheel.schedule(order, dueMillis));
+        return order.getId();
+    }
+
+    /**
+     * Cancels the order with id <code>orderId</code>, so that none of its remaining
+     * transactions are executed
+     * @return <code>true</code> if the order was pending
+     */
+    public synchronized boolean cancel(long orderId) {
+        boolean retrying = retries.removeIf(occurrence -> occurrence.getId() == orderId);
+        TimerWheel.Timeout<StandingOrder> timeout = pending.remove(orderId);
+        return (timeout != null && wheel.cancel(timeout)) || retrying;
+    }
+
+    /**
+     * Executes the orders that have fallen due by <code>nowMillis</code>, and schedules
+     * the next transaction of each recurring order. At most <code>MAX_BATCH</code>
+     * occurrences are executed, oldest first; see <code>isBehind</code>
+     * @return The <code>Record</code> of each order executed, in the order executed.
+     * Orders for accounts that no longer exist are cancelled and have no <code>Record</code>,
+     * nor do withdrawals left to retry
+     */
+    public List<Record> runDue(long nowMillis) {
+        synchronized (executing) {
+            List<Record> records = new ArrayList<>();
+            for (StandingOrder occurrence : takeDue(nowMillis)) {
+                Account account = registry.get(occurrence.getAccountId());
+                if (account == null) {
+                    continue;
+                }
+                long conflicts = retry.getConflicts();
+                Record record = execute(occurrence, account);
+                if (retry.getConflicts() - conflicts == WITHDRAW_ATTEMPTS) {
+                    synchronized (this) {
+                        retries.add(occurrence);
+                    }
+                } else {
+                    records.add(record);
+                }
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Evaluates to <code>true</code> if the last <code>runDue</code> stopped at
+     * <code>MAX_BATCH</code> occurrences, so that more may already be due, for
+     * example after a long time not running
+     */
+    public synchronized boolean isBehind() {
+        return behind;
+    }
+
+    /**
+     * Gets the number of occurrences waiting to be executed, which is one for
+     * each pending order and each withdrawal left to retry
+     */
+    public synchronized int size() {
+        return pending.size() + retries.size();
+    }
+
+    /**
+     * Writes every pending order to <code>out</code>, to be read back by <code>load</code>
+     */
+    public synchronized void save(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(nextId);
+        out.writeInt(pending.size());
+        for (TimerWheel.Timeout<StandingOrder> timeout : pending.values()) {
+            writeOrder(out, timeout.getValue());
+        }
+        out.writeInt(retries.size());
+        for (StandingOrder occurrence : retries) {
+            writeOrder(out, occurrence);
+        }
+    }
+
+    /**
+     * Schedules the orders written by <code>save</code> to <code>in</code>, keeping their ids.
+     * This scheduler must not have scheduled any orders of its own yet
+     * @throws IOException if <code>in</code> does not hold saved orders
+     */
+    public synchronized void load(DataInput in) throws IOException {
+        if (nextId != 1) {
+            throw new IllegalStateException("Orders have already been scheduled");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unknown standing order format " + version);
+        }
+        long savedNextId = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            StandingOrder order = readOrder(in);
+            pending.put(order.getId(), wheel.schedule(order, order.getDueMillis()));
+        }
+        int retryCount = version >= 2 ? in.readInt() : 0;
+        for (int i = 0; i < retryCount; i++) {
+            retries.add(readOrder(in));
+        }
+        nextId = savedNextId;
+    }
+
+    /**
+     * Takes up to <code>MAX_BATCH</code> occurrences due by <code>nowMillis</code> off the
+     * wheel, after any withdrawals left to retry, and schedules the next occurrence of each
+     * recurring order
+     */
+    private synchronized List<StandingOrder> takeDue(long nowMillis) {
+        List<StandingOrder> retrying = retries.subList(0, Math.min(retries.size(), MAX_BATCH));
+        List<StandingOrder> due = new ArrayList<>(retrying);
+        retrying.clear();
+        List<StandingOrder> batch = new ArrayList<>();
+        while (due.size() < MAX_BATCH // again for occurrences missed while not running
+                && wheel.advance(nowMillis, MAX_BATCH - due.size(), batch::add) > 0) {
+            for (StandingOrder order : batch) {
+                pending.remove(order.getId());
+                if (registry.get(order.getAccountId()) == null) {
+                    continue;
+                }
+                due.add(order.occurrence());
+                if (order.isRecurring()) {
+                    order.advance();
+                    pending.put(order.getId(), wheel.schedule(order, order.getDueMillis()));
+                }
+            }
+            batch.clear();
+        }
+        behind = due.size() == MAX_BATCH;
+        return due;
+    }
+
+    private Record execute(StandingOrder occurrence, Account account) {
+        Transaction transaction = occurrence.toTransaction();
+        if (occurrence.getAction().equals("DEPOSIT")) {
+            return transaction.execute(account);
+        }
+        BigDecimal amount = occurrence.getAmount();
+        return retry.execute(account, a -> withdrawValueIsValid(amount, a)
+                && velocityLimit.allows(amount, a, occurrence.getDueMillis()) ? transaction : null);
+    }
+
+    private static void writeOrder(DataOutput out, StandingOrder order) throws IOException {
+        out.writeLong(order.getId());
+        out.writeLong(order.getAccountId());
+        out.writeUTF(order.getAction());
+        out.writeUTF(order.getAmount().toPlainString());
+        out.writeLong(order.getDueMillis());
+        out.writeLong(order.getPeriodMillis());
+    }
+
+    private static StandingOrder readOrder(DataInput in) throws IOException {
+        long id = in.readLong();
+        long accountId = in.readLong();
+        String action = in.readUTF();
+        BigDecimal amount = new BigDecimal(in.readUTF());
+        long dueMillis = in.readLong();
+        long periodMillis = in.readLong();
+        try {
+            return new StandingOrder(id, accountId, action, amount, dueMillis, periodMillis);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies that <code>amount</code> may be withdrawn from <code>account</code>, by
+     * the same rule as <code>Controller</code>
+     */
+    private static boolean withdrawValueIsValid(BigDecimal amount, Account account) {
+        return amount.compareTo(account.getBalance()) < 0; //amount to withdraw less than balance
+    }
+}
@@ -0,0 +1,258 @@
+package main.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel holding values until a deadline. Time is divided into ticks,
+ * and each level of the wheel is a ring of slots covering 256 times as many ticks as the
+ * level below it. A value is kept in the lowest level whose ring reaches its deadline,
+ * and is moved down a level each time its slot comes round, until it fires from the
+ * lowest level. Each slot is a doubly linked list, so scheduling and cancelling take
+ * constant time however many values are held.
+ * <p>
+ * Values never fire before their deadline, and fire at most one tick after it. Advancing
+ * jumps from one occupied slot to the next, so the time it takes depends on the number
+ * of values held rather than on how far the wheel is moved.
+ * This class is not thread safe
+ * @param <T> The type of value held
+ */
+public class TimerWheel<T> {
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6; // 2^48 ticks, thousands of years even with 1ms ticks
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[][] wheel;
+    private final Timeout<T> overdue = new Timeout<>(null, 0, 0); // deadline already passed when scheduled
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates an empty wheel
+     * @param tickMillis The length of a tick, which is how late a value may fire
+     * @param startMillis The time the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheel = (Timeout<T>[][]) new Timeout<?>[LEVELS][SLOTS];
+        for (Timeout<T>[] level : wheel) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Timeout<>(null, 0, 0); // sentinel of an empty circular list
+            }
+        }
+    }
+
+    /**
+     * Holds <code>value</code> until <code>deadlineMillis</code>. A deadline that has
+     * already passed fires on the next call to <code>advance</code>
+     * @return A handle for cancelling the value
+     */
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        long deadlineTick = Math.max(0, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        if (deadlineTick - currentTick >= 1L << (SLOT_BITS * LEVELS)) {
+            throw new IllegalArgumentException("Deadline is too far in the future: " + deadlineMillis);
+        }
+        Timeout<T> timeout = new Timeout<>(value, deadlineMillis, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes <code>timeout</code> from the wheel, so that it never fires
+     * @return <code>true</code> if it was removed, or <code>false</code> if it
+     * had already fired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        timeout.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to <code>nowMillis</code>, passing the value of every
+     * timeout whose deadline has been reached to <code>due</code>, in order of deadline
+     * tick
+     * @return The number of values passed to <code>due</code>
+     */
+    public int advance(long nowMillis, Consumer<? super T> due) {
+        return advance(nowMillis, Integer.MAX_VALUE, due);
+    }
+
+    /**
+     * Moves the wheel forward towards <code>nowMillis</code> like <code>advance</code>,
+     * but stops once <code>maxValues</code> values have been passed to <code>due</code>.
+     * Values left due are passed to <code>due</code> by the next call, before any others
+     * @return The number of values passed to <code>due</code>
+     */
+    public int advance(long nowMillis, int maxValues, Consumer<? super T> due) {
+        int fired = drain(overdue, maxValues, due);
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+
+        while (currentTick < targetTick && fired < maxValues) {
+            if (size == 0) {
+                currentTick = targetTick; // nothing to move down or fire on the way
+                break;
+            }
+            long tick = nextBusyTick(targetTick);
+            currentTick = tick;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) { // start of a new slot on this level
+                    cascade(wheel[level][(int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+                }
+            }
+            fired += drain(overdue, maxValues - fired, due);
+            fired += drain(wheel[0][(int) tick & SLOT_MASK], maxValues - fired, due);
+        }
+        return fired;
+    }
+
+    /**
+     * Gets the number of values waiting to fire
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the first tick after the current one at which a value fires or is moved down
+     * a level, or <code>limit</code> if that is sooner. A level only holds values within
+     * one turn of its ring, so at most one turn of each level is looked at
+     */
+    private long nextBusyTick(long limit) {
+        long next = limit;
+        long end = Math.min(limit, currentTick + SLOTS);
+        for (long tick = currentTick + 1; tick < end; tick++) {
+            if (!isEmpty(wheel[0][(int) tick & SLOT_MASK])) {
+                next = tick;
+                break;
+            }
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            long span = 1L << (SLOT_BITS * level);
+            long boundary = (currentTick / span + 1) * span; // start of the next slot on this level
+            if (boundary >= next) {
+                break; // and so are the boundaries of every level above
+            }
+            for (int i = 0; i < SLOTS && boundary < next; i++, boundary += span) {
+                if (!isEmpty(wheel[level][(int) (boundary >>> (SLOT_BITS * level)) & SLOT_MASK])) {
+                    next = boundary;
+                }
+            }
+        }
+        return next;
+    }
+
+    private static boolean isEmpty(Timeout<?> sentinel) {
+        return sentinel.next == sentinel;
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.append(timeout);
+            return;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        wheel[level][(int) (timeout.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK].append(timeout);
+    }
+
+    /**
+     * Moves every timeout in the list of <code>sentinel</code> down to a lower level
+     */
+    private void cascade(Timeout<T> sentinel) {
+        Timeout<T> timeout = sentinel.next;
+        while (timeout != sentinel) {
+            Timeout<T> next = timeout.next;
+            timeout.unlink();
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Passes the values in the list of <code>sentinel</code> to <code>due</code>, up to
+     * <code>maxValues</code> of them. Any left over are moved to the overdue list, since
+     * the wheel moves past their slot
+     */
+    private int drain(Timeout<T> sentinel, int maxValues, Consumer<? super T> due) {
+        int fired = 0;
+        while (sentinel.next != sentinel) {
+            if (fired == maxValues) {
+                while (sentinel != overdue && sentinel.next != sentinel) {
+                    Timeout<T> timeout = sentinel.next;
+                    timeout.unlink();
+                    overdue.append(timeout);
+                }
+                break;
+            }
+            Timeout<T> timeout = sentinel.next;
+            timeout.unlink();
+            size--;
+            fired++;
+            due.accept(timeout.value);
+        }
+        return fired;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    /**
+     * A value held in a <code>TimerWheel</code>, and its place in a slot
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private Timeout<T> prev = this;
+        private Timeout<T> next = this;
+
+        private Timeout(T value, long deadlineMillis, long deadlineTick) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Evaluates to <code>true</code> if this has neither fired nor been cancelled
+         */
+        public boolean isPending() {
+            return next != this;
+        }
+
+        private void append(Timeout<T> timeout) {
+            timeout.prev = prev;
+            timeout.next = this;
+            prev.next = timeout;
+            prev = timeout;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
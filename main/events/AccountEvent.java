@@ -0,0 +1,54 @@
+package main.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import main.commands.Record;
+import main.models.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Flight Recorder event for some operation on an <code>Account</code>. An event is timed
+ * between <code>begin</code> and <code>commitFor</code>, and its fields are only filled in
+ * if it is going to be recorded, so the cost is close to nothing while recording is off
+ */
+@Category("Bank")
+public abstract class AccountEvent extends Event {
+
+    @Label("Account Id")
+    long accountId;
+
+    @Label("Command Type")
+    @Description("Action of the command executed, such as DEPOSIT or NOOP")
+    String commandType;
+
+    @Label("Amount")
+    @Description("Amount of the transaction in dollars, or 0 if no transaction was executed")
+    double amount;
+
+    @Label("History Size")
+    @Description("Number of records in the history of the account afterwards")
+    int historySize;
+
+    /**
+     * Ends the event and records it, if it is enabled and lasted longer than its threshold
+     * @param account The account operated on
+     * @param record The result of the operation, or <code>null</code> if there is none
+     */
+    public void commitFor(Account account, Record record) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        accountId = account.getId();
+        historySize = account.getHistorySize();
+        if (record != null) {
+            commandType = record.getAction();
+            BigDecimal value = record.getAmountValue();
+            amount = value == null ? 0 : value.doubleValue();
+        }
+        commit();
+    }
+}
@@ -0,0 +1,11 @@
+package main.events;
+
+import jdk.jfr.Label;
+
+/**
+ * Execution of a <code>Command</code> on an account, including waiting
+ * for other transactions on the account to finish
+ */
+@Label("Command Execution")
+public class CommandEvent extends AccountEvent {
+}
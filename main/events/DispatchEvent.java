@@ -0,0 +1,21 @@
+package main.events;
+
+import jdk.jfr.Label;
+
+/**
+ * Handling of one menu choice by <code>Controller::executeInput</code>, from
+ * validating the input to executing the resulting <code>Command</code>
+ */
+@Label("Dispatch")
+public class DispatchEvent extends AccountEvent {
+
+    @Label("Input")
+    String input;
+
+    /**
+     * @param input The menu choice entered by the user
+     */
+    public DispatchEvent(String input) {
+        this.input = input;
+    }
+}
@@ -0,0 +1,10 @@
+package main.events;
+
+import jdk.jfr.Label;
+
+/**
+ * Appending a <code>Record</code> to the history of an account
+ */
+@Label("History Append")
+public class HistoryAppendEvent extends AccountEvent {
+}
@@ -0,0 +1,45 @@
+package main.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * One phase of displaying a statement in <code>View::printStatement</code>
+ */
+@Category("Bank")
+@Label("Statement Phase")
+public class StatementPhaseEvent extends Event {
+
+    public static final String EXTRACT = "extract";
+    public static final String FORMAT = "format";
+    public static final String PRINT = "print";
+
+    @Label("Phase")
+    @Description("One of extract, format or print")
+    String phase;
+
+    @Label("Records")
+    @Description("Number of records in the statement")
+    int records;
+
+    /**
+     * @param phase One of <code>EXTRACT</code>, <code>FORMAT</code> or <code>PRINT</code>
+     */
+    public StatementPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Ends the event and records it, if it is enabled and lasted longer than its threshold
+     * @param records The number of records in the statement
+     */
+    public void commitFor(int records) {
+        end();
+        if (shouldCommit()) {
+            this.records = records;
+            commit();
+        }
+    }
+}
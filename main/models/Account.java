@@ -1,27 +1,94 @@
 package main.models;
 
 import main.commands.Record;
+import main.events.HistoryAppendEvent;
+import main.models.history.History;
+import main.models.history.HistoryIndex;
+import main.models.history.InMemoryHistory;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Representation of a bank account
  */
 public class Account {
     private static final int INITIAL_BALANCE = 0;
+    private static final int SPINS_BEFORE_YIELDING = 100;
+    private static final int YIELDS_BEFORE_PARKING = 10;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+    private static final VarHandle VERSION_STATE;
 
-    private BigDecimal balance;
-    private final List<Record> history;
+    static {
+        try {
+            VERSION_STATE = MethodHandles.lookup().findVarHandle(Account.class, "versionState", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long id;
+    private volatile BigDecimal balance;
+    private final History history;
+    private volatile long versionState; // twice the version, plus 1 while a transaction is being written
+    private volatile WithdrawalWindow withdrawals; // created on the first withdrawal
 
     /**
      * Creates a new account and initialises account balance to 0
      * with an empty transaction history
      */
     public Account() {
-        balance = BigDecimal.valueOf(INITIAL_BALANCE);
-        history = new ArrayList<>();
+        this(0);
+    }
+
+    /**
+     * Creates a new account identified by <code>id</code> and initialises
+     * account balance to 0 with an empty transaction history
+     * @param id The identifier of the account, as assigned by <code>AccountRegistry</code>
+     */
+    public Account(long id) {
+        this(id, new InMemoryHistory());
+    }
+
+    /**
+     * Creates an account identified by <code>id</code>, keeping its transaction history in
+     * <code>history</code>. An empty history is a new account with a balance of 0. A history
+     * holding <code>Record</code>s, such as a <code>TieredHistory</code> reopened after a
+     * restart, continues the account: its balance is that of the last <code>Record</code>,
+     * and its version is the number of <code>Record</code>s
+     * @param id The identifier of the account, as assigned by <code>AccountRegistry</code>
+     * @param history Storage for the transaction history, such as a <code>TieredHistory</code>
+     */
+    public Account(long id, History history) {
+        this(id, latestBalance(history), history);
+        this.versionState = (long) history.size() << 1;
+    }
+
+    /**
+     * Creates an account with the given state. Subclasses that keep account state
+     * elsewhere pass <code>null</code> for <code>balance</code> and <code>history</code>,
+     * and must then override every accessor
+     */
+    protected Account(long id, BigDecimal balance, History history) {
+        this.id = id;
+        this.balance = balance;
+        this.history = history;
+    }
+
+    private static BigDecimal latestBalance(History history) {
+        int size = history.size();
+        return size == 0 ? BigDecimal.valueOf(INITIAL_BALANCE) : history.snapshot().get(size - 1).getBalanceValue();
+    }
+
+    /**
+     * Gets the identifier of the account
+     * @return The id assigned when the account was created, or 0 for a standalone account
+     */
+    public long getId() {
+        return id;
     }
 
     /**
@@ -41,10 +108,141 @@ public class Account {
     }
 
     /**
-     * Gets a copy of the account's transaction history
+     * Gets the running totals of withdrawals from the account over the last 24 hours
+     * @return The totals, or <code>null</code> if nothing has ever been withdrawn
+     */
+    public WithdrawalWindow getWithdrawalWindow() {
+        return withdrawals;
+    }
+
+    /**
+     * Adds a withdrawal to the running totals of withdrawals from the account. This
+     * method is only to be used in the <code>transactions</code> package
+     * @param amount The amount withdrawn, in dollars
+     * @param timeMillis The time of the withdrawal
+     */
+    public void recordWithdrawal(BigDecimal amount, long timeMillis) {
+        WithdrawalWindow window = withdrawals;
+        if (window == null) { // only one transaction is written at a time, so this cannot race
+            window = new WithdrawalWindow();
+            withdrawals = window;
+        }
+        window.record(amount, timeMillis);
+    }
+
+    /**
+     * Gets the version of the account, which starts at 0 and increases by 1 with every
+     * transaction executed on it. Pass it to <code>Transaction::execute</code> to execute
+     * a transaction only if the account has not changed since the version was read
+     */
+    public long getVersion() {
+        return getVersionState() >>> 1;
+    }
+
+    /**
+     * Claims the account for writing a transaction, provided its version is still
+     * <code>expectedVersion</code> and no other transaction is being written. Never waits.
+     * This method is only to be used in the <code>transactions</code> package
+     * @return <code>true</code> if the account was claimed, in which case
+     * <code>endWrite</code> must be called once the transaction is written
+     */
+    public boolean tryBeginWrite(long expectedVersion) {
+        return compareAndSetVersionState(expectedVersion << 1, (expectedVersion << 1) | 1);
+    }
+
+    /**
+     * Claims the account for writing a transaction, waiting for any transaction
+     * being written to finish. This method is only to be used in the
+     * <code>transactions</code> package
+     * @return The version of the account before the transaction, to be passed to
+     * <code>endWrite</code> once the transaction is written
+     */
+    public long beginWrite() {
+        int spins = 0;
+        long parkNanos = 1_000;
+        while (true) {
+            long state = getVersionState();
+            if ((state & 1) == 0 && compareAndSetVersionState(state, state | 1)) {
+                return state >>> 1;
+            }
+            if (++spins < SPINS_BEFORE_YIELDING) {
+                Thread.onSpinWait();
+            } else if (spins < SPINS_BEFORE_YIELDING + YIELDS_BEFORE_PARKING) {
+                Thread.yield(); // the writer may have been descheduled mid-transaction
+            } else {
+                LockSupport.parkNanos(parkNanos); // the writer may be doing I/O, such as spilling history
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Releases the account after writing a transaction, incrementing its version.
+     * This method is only to be used in the <code>transactions</code> package
+     * @param version The version returned by <code>beginWrite</code>, or passed
+     *                to <code>tryBeginWrite</code>
+     */
+    public void endWrite(long version) {
+        setVersionState((version + 1) << 1);
+    }
+
+    /**
+     * Releases the account after failing to write a transaction, leaving its version
+     * unchanged. The caller must first have undone any change made to the account.
+     * This method is only to be used in the <code>transactions</code> package
+     * @param version The version returned by <code>beginWrite</code>, or passed
+     *                to <code>tryBeginWrite</code>
+     */
+    public void abortWrite(long version) {
+        setVersionState(version << 1);
+    }
+
+    /**
+     * Gets the raw version state, which is twice the version, plus 1 while a transaction
+     * is being written. Subclasses that keep account state elsewhere override this
+     * together with <code>compareAndSetVersionState</code> and <code>setVersionState</code>
+     */
+    protected long getVersionState() {
+        return versionState;
+    }
+
+    /**
+     * Atomically sets the raw version state to <code>update</code> if it is <code>expected</code>
+     */
+    protected boolean compareAndSetVersionState(long expected, long update) {
+        return VERSION_STATE.compareAndSet(this, expected, update);
+    }
+
+    /**
+     * Sets the raw version state
+     */
+    protected void setVersionState(long state) {
+        versionState = state;
+    }
+
+    /**
+     * Gets a snapshot of the account's transaction history, which is not
+     * affected by transactions executed afterwards
      */
     public List<Record> getHistory() {
-        return new ArrayList<>(history);
+        return history.snapshot();
+    }
+
+    /**
+     * Gets the number of <code>Record</code>s in the account's transaction history,
+     * without copying it
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * Gets the secondary indexes kept over the account's transaction history, if any.
+     * Open the account with an <code>IndexedHistory</code> to keep them
+     * @return The indexes, or <code>null</code> if the history is not indexed
+     */
+    public HistoryIndex getHistoryIndex() {
+        return history.getIndex();
     }
 
     /**
@@ -52,6 +250,9 @@ public class Account {
      * @param record
      */
     public void setHistory(Record record) {
+        HistoryAppendEvent event = new HistoryAppendEvent();
+        event.begin();
         history.add(record);
+        event.commitFor(this, record);
     }
 }
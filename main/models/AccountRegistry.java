@@ -0,0 +1,51 @@
+package main.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of all the accounts held by the bank, indexed by account id.
+ * Accounts may be opened and looked up concurrently
+ */
+public class AccountRegistry {
+
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Opens a new account with a fresh id and a balance of 0
+     * @return The newly opened <code>Account</code>
+     */
+    public Account open() {
+        Account account = new Account(nextId.getAndIncrement());
+        accounts.put(account.getId(), account);
+        return account;
+    }
+
+    /**
+     * Gets the account with the given <code>id</code>
+     * @param id The id of the account
+     * @return The <code>Account</code>, or <code>null</code> if no such account was opened
+     */
+    public Account get(long id) {
+        return accounts.get(id);
+    }
+
+    /**
+     * Gets a point-in-time list of every account in the registry. Accounts opened
+     * after this call returns are not included
+     */
+    public List<Account> getAccounts() {
+        return new ArrayList<>(accounts.values());
+    }
+
+    /**
+     * Gets the number of accounts in the registry
+     */
+    public int size() {
+        return accounts.size();
+    }
+}
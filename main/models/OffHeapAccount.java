@@ -0,0 +1,91 @@
+package main.models;
+
+import main.commands.Record;
+import main.events.HistoryAppendEvent;
+import main.models.history.HistoryIndex;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Flyweight <code>Account</code> whose balance, version and history head are kept in a
+ * slot of an <code>OffHeapAccountStore</code>, and whose history and withdrawal totals
+ * are kept by the store under its id. It can be used anywhere an <code>Account</code>
+ * is expected. Since the version lives in the slot, transactions on the same account
+ * exclude each other even when executed through different flyweights
+ */
+public class OffHeapAccount extends Account {
+
+    private final OffHeapAccountStore store;
+
+    /**
+     * Do not call constructor directly, use <code>OffHeapAccountStore::getAccount</code>
+     */
+    OffHeapAccount(long id, OffHeapAccountStore store) {
+        super(id, null, null);
+        this.store = store;
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return store.getBalance(getId());
+    }
+
+    /**
+     * Sets the value of the balance of the account. This method is only to be used in
+     * the <code>transactions</code> package
+     * @throws ArithmeticException if <code>value</code> has more than 2 decimal places
+     */
+    @Override
+    public void setBalance(BigDecimal value) {
+        store.setBalance(getId(), value);
+    }
+
+    @Override
+    protected long getVersionState() {
+        return store.getVersionState(getId());
+    }
+
+    @Override
+    protected boolean compareAndSetVersionState(long expected, long update) {
+        return store.compareAndSetVersionState(getId(), expected, update);
+    }
+
+    @Override
+    protected void setVersionState(long state) {
+        store.setVersionState(getId(), state);
+    }
+
+    @Override
+    public List<Record> getHistory() {
+        return store.getHistory(getId());
+    }
+
+    @Override
+    public int getHistorySize() {
+        return store.getHistorySize(getId());
+    }
+
+    @Override
+    public WithdrawalWindow getWithdrawalWindow() {
+        return store.getWithdrawalWindow(getId());
+    }
+
+    @Override
+    public void recordWithdrawal(BigDecimal amount, long timeMillis) {
+        store.recordWithdrawal(getId(), amount, timeMillis);
+    }
+
+    @Override
+    public HistoryIndex getHistoryIndex() {
+        return null; // histories in the store are not indexed
+    }
+
+    @Override
+    public void setHistory(Record record) {
+        HistoryAppendEvent event = new HistoryAppendEvent();
+        event.begin();
+        store.addHistory(getId(), record);
+        event.commitFor(this, record);
+    }
+}
@@ -0,0 +1,204 @@
+package main.models;
+
+import main.commands.Record;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Storage backend that keeps the state of a large number of accounts in fixed-size
+ * slots of direct (off-heap) memory, indexed by account id, so that idle accounts
+ * put no load on the garbage collector. Each slot holds:
+ * <ul>
+ *     <li>the balance, as a 128-bit two's complement number of cents</li>
+ *     <li>the version state of the account, see <code>Account::getVersionState</code></li>
+ *     <li>the history head, which is the number of <code>Record</code>s in the history</li>
+ *     <li>the balance sequence, which is odd while the balance is being written</li>
+ *     <li>the address of the latest <code>Record</code> of the account in the history log</li>
+ * </ul>
+ * <code>Record</code>s are kept off the heap too, in an <code>OffHeapHistoryLog</code>
+ * shared by every account, and are only decoded onto the heap for a snapshot. Only the
+ * <code>WithdrawalWindow</code>s of accounts that have made withdrawals stay on the heap.
+ * Slot pages and log chunks are reserved as they are first used, and are released
+ * together with the store once it is no longer reachable. Accounts are accessed through <code>OffHeapAccount</code>
+ * flyweights handed out by <code>getAccount</code>. The version is updated atomically,
+ * so any number of flyweights for the same id may execute transactions concurrently.
+ * The balance spans two longs, so it is read under a sequence lock: a reader retries
+ * until the balance sequence is even and unchanged across the read. The version state
+ * cannot serve as the sequence, because the transaction holding it reads the balance too
+ */
+public class OffHeapAccountStore {
+
+    static final int SLOT_SIZE = 40;
+    private static final int BALANCE_HIGH = 0;
+    private static final int BALANCE_LOW = 8;
+    private static final int VERSION = 16;
+    private static final int HISTORY_HEAD = 24;
+    private static final int BALANCE_SEQUENCE = 28;
+    private static final int LATEST_RECORD = 32; // log address plus 1, so that a zeroed slot has no history
+
+    private static final int SLOTS_PER_PAGE = 1 << 20;
+    private static final int MONETARY_SCALE = 2;
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final long capacity;
+    private final AtomicReferenceArray<ByteBuffer> pages;
+    private final OffHeapHistoryLog log = new OffHeapHistoryLog();
+    private final Map<Long, WithdrawalWindow> withdrawals = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store able to hold accounts with ids from 0 to <code>capacity - 1</code>.
+     * Memory is reserved a page at a time, as ids in each page are first used
+     * @param capacity The maximum number of accounts
+     */
+    public OffHeapAccountStore(long capacity) {
+        this.capacity = capacity;
+        this.pages = new AtomicReferenceArray<>((int) ((capacity + SLOTS_PER_PAGE - 1) / SLOTS_PER_PAGE));
+    }
+
+    /**
+     * Gets a flyweight over the slot of the account with the given <code>id</code>. A new
+     * account has a balance of 0 and an empty history. Flyweights hold no state of their
+     * own, so any number of them may be created for the same id
+     * @param id The id of the account, from 0 to <code>capacity - 1</code>
+     */
+    public OffHeapAccount getAccount(long id) {
+        if (id < 0 || id >= capacity) {
+            throw new IndexOutOfBoundsException("Account id " + id + " is outside the store capacity " + capacity);
+        }
+        return new OffHeapAccount(id, this);
+    }
+
+    /**
+     * Gets the number of accounts this store can hold
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    BigDecimal getBalance(long id) {
+        ByteBuffer page = page(id);
+        int offset = offset(id);
+        long high;
+        long low;
+        while (true) {
+            int sequence = (int) INT_VIEW.getAcquire(page, offset + BALANCE_SEQUENCE);
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait(); // a write is under way, and takes nanoseconds
+                continue;
+            }
+            high = (long) LONG_VIEW.get(page, offset + BALANCE_HIGH);
+            low = (long) LONG_VIEW.get(page, offset + BALANCE_LOW);
+            VarHandle.loadLoadFence(); // the halves are read before the sequence is checked again
+            if ((int) INT_VIEW.getVolatile(page, offset + BALANCE_SEQUENCE) == sequence) {
+                break;
+            }
+        }
+
+        if (high == (low >> 63)) { // fits in a long, which is every realistic balance
+            return BigDecimal.valueOf(low, MONETARY_SCALE);
+        }
+        BigInteger unsignedLow = BigInteger.valueOf(low >>> 1).shiftLeft(1).or(BigInteger.valueOf(low & 1));
+        return new BigDecimal(BigInteger.valueOf(high).shiftLeft(64).or(unsignedLow), MONETARY_SCALE);
+    }
+
+    /**
+     * Only called by the holder of the version state, so there is a single writer per slot
+     * @throws ArithmeticException if <code>value</code> has more than 2 decimal places
+     * or does not fit in 128 bits of cents
+     */
+    void setBalance(long id, BigDecimal value) {
+        BigInteger cents = value.setScale(MONETARY_SCALE).unscaledValue();
+        if (cents.bitLength() > 127) {
+            throw new ArithmeticException("Balance " + value + " is too large for an off-heap slot");
+        }
+        ByteBuffer page = page(id);
+        int offset = offset(id);
+        int sequence = (int) INT_VIEW.get(page, offset + BALANCE_SEQUENCE);
+        INT_VIEW.setVolatile(page, offset + BALANCE_SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence(); // readers see the odd sequence before either half changes
+        LONG_VIEW.set(page, offset + BALANCE_HIGH, cents.shiftRight(64).longValue());
+        LONG_VIEW.set(page, offset + BALANCE_LOW, cents.longValue());
+        INT_VIEW.setRelease(page, offset + BALANCE_SEQUENCE, sequence + 2);
+    }
+
+    long getVersionState(long id) {
+        return (long) LONG_VIEW.getVolatile(page(id), offset(id) + VERSION);
+    }
+
+    boolean compareAndSetVersionState(long id, long expected, long update) {
+        return LONG_VIEW.compareAndSet(page(id), offset(id) + VERSION, expected, update);
+    }
+
+    void setVersionState(long id, long state) {
+        LONG_VIEW.setVolatile(page(id), offset(id) + VERSION, state);
+    }
+
+    List<Record> getHistory(long id) {
+        ByteBuffer page = page(id);
+        int offset = offset(id);
+        int size = (int) INT_VIEW.getVolatile(page, offset + HISTORY_HEAD); // before the latest record, which is newer
+        long latest = (long) LONG_VIEW.getVolatile(page, offset + LATEST_RECORD) - 1;
+        return log.read(latest, size);
+    }
+
+    int getHistorySize(long id) {
+        return (int) INT_VIEW.getVolatile(page(id), offset(id) + HISTORY_HEAD);
+    }
+
+    /**
+     * Only called by the holder of the version state, so there is a single writer per slot
+     * @throws IllegalStateException if the history log is full, in which case the
+     * history is unchanged
+     */
+    void addHistory(long id, Record record) {
+        ByteBuffer page = page(id);
+        int offset = offset(id);
+        long latest = log.append((long) LONG_VIEW.get(page, offset + LATEST_RECORD) - 1, record);
+        LONG_VIEW.setVolatile(page, offset + LATEST_RECORD, latest + 1);
+        INT_VIEW.setVolatile(page, offset + HISTORY_HEAD, (int) INT_VIEW.get(page, offset + HISTORY_HEAD) + 1);
+    }
+
+    WithdrawalWindow getWithdrawalWindow(long id) {
+        return withdrawals.get(id);
+    }
+
+    void recordWithdrawal(long id, BigDecimal amount, long timeMillis) {
+        withdrawals.computeIfAbsent(id, key -> new WithdrawalWindow()).record(amount, timeMillis);
+    }
+
+    /**
+     * Gets the page holding the slot of <code>id</code>, reserving it on first use.
+     * Freshly allocated direct buffers are zeroed, which is an empty account. Pages are
+     * reserved under a lock, so that threads racing for the same page allocate it only once
+     */
+    private ByteBuffer page(long id) {
+        int index = (int) (id / SLOTS_PER_PAGE);
+        ByteBuffer page = pages.get(index);
+        if (page == null) {
+            synchronized (pages) {
+                page = pages.get(index);
+                if (page == null) {
+                    page = ByteBuffer.allocateDirect(SLOTS_PER_PAGE * SLOT_SIZE);
+                    pages.set(index, page);
+                }
+            }
+        }
+        return page;
+    }
+
+    private static int offset(long id) {
+        return (int) (id % SLOTS_PER_PAGE) * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,110 @@
+package main.models;
+
+import main.commands.Record;
+import main.models.history.RecordCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Append-only log in direct (off-heap) memory holding the <code>Record</code>s of every
+ * account of an <code>OffHeapAccountStore</code>, so that the histories of idle accounts
+ * put no load on the garbage collector. Each entry holds a <code>Record</code> in the
+ * encoding of <code>RecordCodec</code> and the address of the previous entry of the same
+ * account, so the history of an account is a chain running back from its latest entry,
+ * whose address the store keeps in the slot of the account.
+ * <p>
+ * Memory is reserved a chunk at a time as the log grows, and is only released with the
+ * store. Entries are appended under a lock and never change afterwards, so they can be
+ * read without one once their address has been published
+ */
+class OffHeapHistoryLog {
+
+    static final long NONE = -1;
+
+    private static final int CHUNK_BITS = 24;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 16MB
+    private static final int MAX_CHUNKS = 1 << 15;
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES; // previous entry, length
+
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private int chunk = -1;
+    private int position = CHUNK_SIZE;
+
+    /**
+     * Appends <code>record</code> to the log
+     * @param previous The address of the latest entry of the same account, or <code>NONE</code>
+     * @return The address of the new entry
+     * @throws IllegalStateException if the log is full
+     */
+    long append(long previous, Record record) {
+        byte[] bytes = encode(record);
+        int size = HEADER_SIZE + bytes.length;
+        synchronized (this) {
+            if (CHUNK_SIZE - position < size) {
+                if (chunk + 1 == MAX_CHUNKS) {
+                    throw new IllegalStateException("Off-heap history log is full");
+                }
+                chunks.set(++chunk, ByteBuffer.allocateDirect(CHUNK_SIZE)); // zeroed, and published before any address into it
+                position = 0;
+            }
+            ByteBuffer buffer = chunks.get(chunk);
+            buffer.putLong(position, previous);
+            buffer.putInt(position + Long.BYTES, bytes.length);
+            buffer.put(position + HEADER_SIZE, bytes);
+            long address = ((long) chunk << CHUNK_BITS) | position;
+            position += size;
+            return address;
+        }
+    }
+
+    /**
+     * Reads the chain of entries ending at <code>latest</code>
+     * @param count The number of entries to read, from the first of the chain. The chain
+     *              may hold more, appended since the count was read
+     * @return The <code>Record</code>s, in the order appended
+     */
+    List<Record> read(long latest, int count) {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Record> records = new ArrayList<>();
+        for (long address = latest; address != NONE; ) {
+            ByteBuffer buffer = chunks.get((int) (address >>> CHUNK_BITS));
+            int offset = (int) (address & (CHUNK_SIZE - 1));
+            byte[] bytes = new byte[buffer.getInt(offset + Long.BYTES)];
+            buffer.get(offset + HEADER_SIZE, bytes);
+            records.add(decode(bytes));
+            address = buffer.getLong(offset);
+        }
+        Collections.reverse(records);
+        return records.subList(0, count);
+    }
+
+    private static byte[] encode(Record record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            RecordCodec.write(new DataOutputStream(bytes), record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Record decode(byte[] bytes) {
+        try {
+            return RecordCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
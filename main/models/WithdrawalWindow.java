@@ -0,0 +1,125 @@
+package main.models;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Running totals of the withdrawals from an account over a rolling window of time, such
+ * as the last 24 hours. The window is divided into a fixed number of buckets kept in a
+ * ring, and a bucket is dropped from the totals as a whole once it falls out of the
+ * window. Recording a withdrawal and reading the current totals take constant time, and
+ * the memory used does not depend on how many withdrawals are made. Totals for a window
+ * ending before the newest withdrawal are summed from the buckets instead. The totals
+ * may include withdrawals up to one bucket older than the window
+ */
+public class WithdrawalWindow {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofHours(24);
+    public static final int DEFAULT_BUCKETS = 24;
+
+    private final long bucketMillis;
+    private final BigDecimal[] amounts;
+    private final int[] counts;
+    private long latestBucket = Long.MIN_VALUE;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private int totalCount;
+
+    /**
+     * Creates an empty window covering the last 24 hours in buckets of 1 hour
+     */
+    public WithdrawalWindow() {
+        this(DEFAULT_WINDOW, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Creates an empty window
+     * @param window The length of time the window covers
+     * @param buckets The number of buckets the window is divided into
+     */
+    public WithdrawalWindow(Duration window, int buckets) {
+        this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+        this.amounts = new BigDecimal[buckets];
+        this.counts = new int[buckets];
+        Arrays.fill(amounts, BigDecimal.ZERO);
+    }
+
+    /**
+     * Adds a withdrawal of <code>amount</code> made at <code>timeMillis</code> to the window.
+     * A withdrawal older than the newest one recorded, such as a standing order caught up
+     * after a restart, is counted in the bucket of its own time, or not at all if that
+     * bucket has already left the window
+     */
+    public synchronized void record(BigDecimal amount, long timeMillis) {
+        long bucket = Math.floorDiv(timeMillis, bucketMillis);
+        advance(bucket);
+        if (bucket <= latestBucket - amounts.length) {
+            return;
+        }
+        int slot = slot(bucket);
+        amounts[slot] = amounts[slot].add(amount);
+        counts[slot]++;
+        totalAmount = totalAmount.add(amount);
+        totalCount++;
+    }
+
+    /**
+     * Gets the total amount withdrawn within the window ending at <code>nowMillis</code>.
+     * For a time before the newest withdrawal recorded, withdrawals in buckets that have
+     * since left the window are not counted
+     */
+    public synchronized BigDecimal getAmount(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        advance(bucket);
+        if (bucket == latestBucket) {
+            return totalAmount;
+        }
+        BigDecimal amount = BigDecimal.ZERO; // the oldest bucket in the ring is within this earlier window
+        for (long past = latestBucket - amounts.length + 1; past <= bucket; past++) {
+            amount = amount.add(amounts[slot(past)]);
+        }
+        return amount;
+    }
+
+    /**
+     * Gets the number of withdrawals within the window ending at <code>nowMillis</code>.
+     * For a time before the newest withdrawal recorded, withdrawals in buckets that have
+     * since left the window are not counted
+     */
+    public synchronized int getCount(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        advance(bucket);
+        if (bucket == latestBucket) {
+            return totalCount;
+        }
+        int count = 0;
+        for (long past = latestBucket - amounts.length + 1; past <= bucket; past++) {
+            count += counts[slot(past)];
+        }
+        return count;
+    }
+
+    /**
+     * Moves the window forward to end in <code>bucket</code>, dropping the buckets
+     * that fall out of it. Does nothing if the window already ends later. At most
+     * one full turn of the ring is cleared
+     */
+    private void advance(long bucket) {
+        if (bucket <= latestBucket) {
+            return;
+        }
+        long expired = latestBucket == Long.MIN_VALUE ? amounts.length : Math.min(bucket - latestBucket, amounts.length);
+        for (long i = 1; i <= expired; i++) {
+            int slot = slot(bucket - expired + i); // slot of a new bucket, still holding one that has left the window
+            totalAmount = totalAmount.subtract(amounts[slot]);
+            totalCount -= counts[slot];
+            amounts[slot] = BigDecimal.ZERO;
+            counts[slot] = 0;
+        }
+        latestBucket = bucket;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) amounts.length);
+    }
+}
@@ -0,0 +1,313 @@
+package main.models.history;
+
+import main.commands.Record;
+import main.commands.transactions.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding for sequences of transaction <code>Record</code>s, taking
+ * advantage of how regular transaction histories are:
+ * <ul>
+ *     <li>timestamps are stored as the difference from the previous timestamp</li>
+ *     <li>amounts are stored as zig-zag varints of cents, signed by whether they
+ *     add to or take from the balance</li>
+ *     <li>balances are only stored once per block of <code>BLOCK_SIZE</code>
+ *     <code>Record</code>s, as the opening balance of the block, and the rest are
+ *     derived by replaying amounts. A <code>Record</code> whose balance does not follow
+ *     from the one before it, as in a filtered list of <code>Record</code>s, stores its
+ *     balance as a new checkpoint, so any list of <code>Record</code>s round trips</li>
+ * </ul>
+ * The encoding starts with a table of block offsets, so that any block can be decoded
+ * without decoding the ones before it. Amounts and balances must have at most 2
+ * decimal places, which holds for every <code>Transaction</code> in this application
+ */
+public class CompactHistoryCodec {
+
+    public static final int BLOCK_SIZE = 64;
+
+    private static final int MONETARY_SCALE = 2;
+    private static final String[] ACTIONS = {"DEPOSIT", "WITHDRAW", "INTEREST"};
+    private static final int WITHDRAW = 1;
+    private static final int LARGE_AMOUNT = 0x80; // amount does not fit in a long of cents
+    private static final int CHECKPOINT = 0x40; // balance is stored rather than derived
+    private static final int ACTION_MASK = 0x3f;
+
+    private CompactHistoryCodec() {}
+
+    /**
+     * Encodes <code>records</code>, which must all contain a <code>Transaction</code>
+     * @return The encoded bytes
+     */
+    public static byte[] encode(List<Record> records) {
+        int blockCount = (records.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(records.size() * 6);
+        int[] offsets = new int[blockCount];
+
+        for (int block = 0; block < blockCount; block++) {
+            offsets[block] = body.size();
+            int start = block * BLOCK_SIZE;
+            int end = Math.min(start + BLOCK_SIZE, records.size());
+            encodeBlock(body, records, start, end);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 8 + 4 * blockCount);
+        writeVarLong(out, records.size());
+        for (int offset : offsets) {
+            writeFixedInt(out, offset);
+        }
+        byte[] bytes = body.toByteArray();
+        out.write(bytes, 0, bytes.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes every <code>Record</code> in <code>data</code>, in order
+     */
+    public static List<Record> decode(byte[] data) {
+        Reader reader = new Reader(data);
+        int count = (int) reader.readVarLong();
+        int blockCount = blockCount(count);
+        List<Record> records = new ArrayList<>(count);
+
+        reader.position += 4 * blockCount; // blocks are contiguous, so the offset table is not needed
+        for (int block = 0; block < blockCount; block++) {
+            decodeBlock(reader, Math.min(BLOCK_SIZE, count - block * BLOCK_SIZE), records);
+        }
+        return records;
+    }
+
+    /**
+     * Decodes only the <code>Record</code>s in block <code>block</code> of <code>data</code>.
+     * The <code>Record</code> at position <code>i</code> of the sequence is in block
+     * <code>i / BLOCK_SIZE</code>
+     */
+    public static List<Record> decodeBlock(byte[] data, int block) {
+        Reader reader = new Reader(data);
+        int count = (int) reader.readVarLong();
+        int blockCount = blockCount(count);
+        if (block < 0 || block >= blockCount) {
+            throw new IndexOutOfBoundsException("Block " + block + " out of " + blockCount);
+        }
+
+        int tableStart = reader.position;
+        reader.position = tableStart + 4 * block;
+        int offset = reader.readFixedInt();
+        reader.position = tableStart + 4 * blockCount + offset;
+
+        int size = Math.min(BLOCK_SIZE, count - block * BLOCK_SIZE);
+        List<Record> records = new ArrayList<>(size);
+        decodeBlock(reader, size, records);
+        return records;
+    }
+
+    /**
+     * Gets the number of <code>Record</code>s encoded in <code>data</code>
+     */
+    public static int size(byte[] data) {
+        return (int) new Reader(data).readVarLong();
+    }
+
+    private static int blockCount(int count) {
+        return (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Writes the opening balance and first timestamp of the block, followed by the action,
+     * timestamp difference and signed amount of each <code>Record</code>, and its balance
+     * if that differs from the previous balance plus the signed amount
+     */
+    private static void encodeBlock(ByteArrayOutputStream out, List<Record> records, int start, int end) {
+        Record first = records.get(start);
+        BigInteger balance = toCents(first.getBalanceValue()).subtract(signedCents(first));
+        writeBigInteger(out, balance);
+
+        long previousTime = first.getDateTime().getTime();
+        writeVarLong(out, zigZag(previousTime));
+
+        for (int i = start; i < end; i++) {
+            Record record = records.get(i);
+            int action = actionCode(record.getAction());
+            BigInteger amount = signedCents(record);
+            boolean large = amount.bitLength() > 62; // leaves room for the zig-zag shift
+            BigInteger actual = toCents(record.getBalanceValue());
+            balance = balance.add(amount);
+            boolean checkpoint = !balance.equals(actual);
+
+            out.write(action | (large ? LARGE_AMOUNT : 0) | (checkpoint ? CHECKPOINT : 0));
+            long time = record.getDateTime().getTime();
+            writeVarLong(out, zigZag(time - previousTime));
+            previousTime = time;
+            if (large) {
+                writeBigInteger(out, amount);
+            } else {
+                writeVarLong(out, zigZag(amount.longValue()));
+            }
+            if (checkpoint) {
+                writeBigInteger(out, actual);
+                balance = actual;
+            }
+        }
+    }
+
+    private static void decodeBlock(Reader reader, int size, List<Record> records) {
+        BigInteger bigBalance = reader.readBigInteger();
+        long balance = 0;
+        boolean large = bigBalance.bitLength() > 62;
+        if (!large) {
+            balance = bigBalance.longValue();
+        }
+        long time = unZigZag(reader.readVarLong());
+
+        for (int i = 0; i < size; i++) {
+            int tag = reader.readByte();
+            time += unZigZag(reader.readVarLong());
+
+            long amount = 0;
+            BigInteger bigAmount = null;
+            if ((tag & LARGE_AMOUNT) != 0) {
+                bigAmount = reader.readBigInteger();
+            } else {
+                amount = unZigZag(reader.readVarLong());
+            }
+
+            BigDecimal balanceValue;
+            if ((tag & CHECKPOINT) != 0) {
+                bigBalance = reader.readBigInteger();
+                large = bigBalance.bitLength() > 62;
+                if (!large) {
+                    balance = bigBalance.longValue();
+                }
+                balanceValue = new BigDecimal(bigBalance, MONETARY_SCALE);
+            } else if (!large && bigAmount == null && canAddWithoutOverflow(balance, amount)) {
+                balance += amount; // fast path for every realistic account
+                balanceValue = BigDecimal.valueOf(balance, MONETARY_SCALE);
+            } else {
+                if (!large) {
+                    bigBalance = BigInteger.valueOf(balance);
+                    large = true;
+                }
+                bigBalance = bigBalance.add(bigAmount != null ? bigAmount : BigInteger.valueOf(amount));
+                balanceValue = new BigDecimal(bigBalance, MONETARY_SCALE);
+            }
+
+            BigDecimal amountValue = bigAmount != null
+                    ? new BigDecimal(bigAmount.abs(), MONETARY_SCALE)
+                    : BigDecimal.valueOf(Math.abs(amount), MONETARY_SCALE);
+            records.add(new Record(toTransaction(tag & ACTION_MASK, amountValue, time), balanceValue));
+        }
+    }
+
+    private static boolean canAddWithoutOverflow(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) >= 0 && Math.abs(sum) < (1L << 62);
+    }
+
+    private static Transaction toTransaction(int action, BigDecimal amount, long time) {
+        try {
+            return RecordCodec.toTransaction(ACTIONS[action], amount, time);
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt history encoding, unknown action " + action, e);
+        }
+    }
+
+    private static int actionCode(String action) {
+        for (int i = 0; i < ACTIONS.length; i++) {
+            if (ACTIONS[i].equals(action)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Cannot encode action " + action);
+    }
+
+    /**
+     * Gets the amount of the <code>Transaction</code> in <code>record</code> in cents,
+     * negative if it takes from the balance
+     */
+    private static BigInteger signedCents(Record record) {
+        BigInteger cents = toCents(record.getAmountValue());
+        return record.getAction().equals(ACTIONS[WITHDRAW]) ? cents.negate() : cents;
+    }
+
+    private static BigInteger toCents(BigDecimal value) {
+        return value.setScale(MONETARY_SCALE).unscaledValue();
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeFixedInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeBigInteger(ByteArrayOutputStream out, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Cursor over encoded bytes
+     */
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int readFixedInt() {
+            int value = (data[position] & 0xFF) << 24
+                    | (data[position + 1] & 0xFF) << 16
+                    | (data[position + 2] & 0xFF) << 8
+                    | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        BigInteger readBigInteger() {
+            int length = (int) readVarLong();
+            BigInteger value = new BigInteger(data, position, length);
+            position += length;
+            return value;
+        }
+    }
+}
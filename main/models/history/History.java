@@ -0,0 +1,36 @@
+package main.models.history;
+
+import main.commands.Record;
+
+import java.util.List;
+
+/**
+ * Storage for the transaction history of an account. <code>Record</code>s are only ever
+ * appended, so the position of a <code>Record</code> never changes once added
+ */
+public interface History {
+
+    /**
+     * Appends <code>record</code> to the end of the history
+     */
+    void add(Record record);
+
+    /**
+     * Gets the <code>Record</code>s in the history at the time of the call, in the order
+     * they were added. The returned list is not affected by later calls to <code>add</code>
+     */
+    List<Record> snapshot();
+
+    /**
+     * Gets the number of <code>Record</code>s in the history
+     */
+    int size();
+
+    /**
+     * Gets the secondary indexes kept over the history, if any
+     * @return The indexes, or <code>null</code> if the history is not indexed
+     */
+    default HistoryIndex getIndex() {
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package main.models.history;
+
+import main.commands.Record;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over a <code>History</code>, by transaction type and by amount within
+ * each type. Each maps to positions of <code>Record</code>s in the history, so queries
+ * such as all withdrawals over some amount, or the largest deposits, only visit the
+ * matching <code>Record</code>s instead of scanning and sorting the whole history.
+ * <p>
+ * Every query takes the size of the snapshot it is answered against, and ignores
+ * positions at or beyond it, which may have been indexed since the snapshot was taken.
+ * Only <code>IndexedHistory</code> adds to the index, once a <code>Record</code> is in
+ * its history, so callers can only read it
+ */
+public class HistoryIndex {
+
+    private final Map<String, Positions> byType = new HashMap<>();
+    private final Map<String, TreeMap<BigDecimal, Positions>> byAmount = new HashMap<>();
+
+    /**
+     * Indexes <code>record</code>, which must contain a <code>Transaction</code>,
+     * at <code>position</code>. Positions must be added in increasing order
+     */
+    synchronized void add(int position, Record record) {
+        byType.computeIfAbsent(record.getAction(), action -> new Positions()).add(position);
+        byAmount.computeIfAbsent(record.getAction(), action -> new TreeMap<>())
+                .computeIfAbsent(record.getAmountValue(), amount -> new Positions())
+                .add(position);
+    }
+
+    /**
+     * Gets the positions of the <code>Record</code>s with action tag <code>action</code>,
+     * in history order
+     * @param size The size of the snapshot queried
+     */
+    public synchronized int[] positions(String action, int size) {
+        Positions positions = byType.get(action);
+        return positions == null ? new int[0] : positions.below(size);
+    }
+
+    /**
+     * Gets the positions of the <code>Record</code>s with action tag <code>action</code> and
+     * an amount from <code>min</code> to <code>max</code>, in history order
+     * @param min The lower bound of the amount, or <code>null</code> for no lower bound
+     * @param minInclusive <code>true</code> if an amount equal to <code>min</code> matches
+     * @param max The upper bound of the amount, or <code>null</code> for no upper bound
+     * @param maxInclusive <code>true</code> if an amount equal to <code>max</code> matches
+     * @param size The size of the snapshot queried
+     */
+    public synchronized int[] positionsInRange(String action, BigDecimal min, boolean minInclusive,
+                                               BigDecimal max, boolean maxInclusive, int size) {
+        NavigableMap<BigDecimal, Positions> amounts = byAmount.get(action);
+        if (amounts == null) {
+            return new int[0];
+        }
+        if (min != null) {
+            amounts = amounts.tailMap(min, minInclusive);
+        }
+        if (max != null) {
+            amounts = amounts.headMap(max, maxInclusive);
+        }
+        int[] matches = collect(amounts.values(), Integer.MAX_VALUE, size);
+        Arrays.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Gets the positions of the <code>k</code> <code>Record</code>s with action tag
+     * <code>action</code> and the largest amounts, largest first. Equal amounts are
+     * in history order
+     * @param size The size of the snapshot queried
+     */
+    public synchronized int[] largest(String action, int k, int size) {
+        TreeMap<BigDecimal, Positions> amounts = byAmount.get(action);
+        return amounts == null ? new int[0] : collect(amounts.descendingMap().values(), k, size);
+    }
+
+    private static int[] collect(Collection<Positions> groups, int limit, int size) {
+        int[] matches = new int[16];
+        int count = 0;
+        for (Positions group : groups) {
+            for (int i = 0; i < group.size && group.items[i] < size; i++) {
+                if (count == limit) {
+                    return Arrays.copyOf(matches, count);
+                }
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = group.items[i];
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Growable list of positions in increasing order
+     */
+    private static class Positions {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = position;
+        }
+
+        int[] below(int limit) {
+            int count = size;
+            while (count > 0 && items[count - 1] >= limit) {
+                count--;
+            }
+            return Arrays.copyOf(items, count);
+        }
+    }
+}
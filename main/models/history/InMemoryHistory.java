@@ -0,0 +1,78 @@
+package main.models.history;
+
+import main.commands.Record;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <code>History</code> kept entirely on the heap, in an append-only array of fixed-size
+ * chunks. A slot is never written again once its <code>Record</code> is published by
+ * incrementing the size, so a snapshot is just the chunk array and the size at the time
+ * it was taken. Taking and reading snapshots is O(1) and lock free, and writers only
+ * ever wait for other writers
+ */
+public class InMemoryHistory implements History {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Record[][] chunks = new Record[1][];
+    private volatile int size;
+
+    @Override
+    public synchronized void add(Record record) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        Record[][] current = chunks;
+
+        if (chunk == current.length) { // readers keep the old directory, which shares every chunk with the new one
+            current = Arrays.copyOf(current, current.length * 2);
+            chunks = current;
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new Record[CHUNK_SIZE];
+        }
+        current[chunk][index & CHUNK_MASK] = record;
+        size = index + 1; // publishes the record to readers
+    }
+
+    @Override
+    public List<Record> snapshot() {
+        int published = size; // read before the chunks, so every published record is in them
+        return new Snapshot(chunks, published);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Read-only view of the first <code>size</code> <code>Record</code>s in <code>chunks</code>
+     */
+    private static class Snapshot extends AbstractList<Record> implements RandomAccess {
+        private final Record[][] chunks;
+        private final int size;
+
+        Snapshot(Record[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Record get(int index) {
+            Objects.checkIndex(index, size);
+            return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package main.models.history;
+
+import main.commands.Record;
+
+import java.util.List;
+
+/**
+ * <code>History</code> that keeps a <code>HistoryIndex</code> up to date as
+ * <code>Record</code>s are added to another <code>History</code>. Wrap the history
+ * of an account in this to make indexed queries on it available. A <code>Record</code>
+ * is indexed once it has been added, and snapshots are taken under the same lock, so
+ * a snapshot holds exactly the <code>Record</code>s indexed at positions below its size
+ */
+public class IndexedHistory implements History {
+
+    private final History history;
+    private final HistoryIndex index = new HistoryIndex();
+
+    /**
+     * @param history The history to index, which must be empty
+     */
+    public IndexedHistory(History history) {
+        if (history.size() != 0) {
+            throw new IllegalArgumentException("Only an empty history can be indexed");
+        }
+        this.history = history;
+    }
+
+    @Override
+    public synchronized void add(Record record) {
+        int position = history.size();
+        history.add(record); // first, so that a failed add leaves no position indexed
+        index.add(position, record);
+    }
+
+    @Override
+    public synchronized List<Record> snapshot() {
+        return history.snapshot();
+    }
+
+    @Override
+    public int size() {
+        return history.size();
+    }
+
+    @Override
+    public HistoryIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,66 @@
+package main.models.history;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Interest;
+import main.commands.transactions.Transaction;
+import main.commands.transactions.Withdraw;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Converts transaction <code>Record</code>s to and from a binary form, so that they can
+ * be written to files or sockets and read back
+ */
+public class RecordCodec {
+
+    private RecordCodec() {}
+
+    /**
+     * Writes <code>record</code>, which must contain a <code>Transaction</code>, to <code>out</code>
+     */
+    public static void write(DataOutput out, Record record) throws IOException {
+        out.writeUTF(record.getAction());
+        out.writeLong(record.getDateTime().getTime());
+        out.writeUTF(record.getAmountValue().toPlainString());
+        out.writeUTF(record.getBalanceValue().toPlainString());
+    }
+
+    /**
+     * Reads a <code>Record</code> previously written by <code>write</code> from <code>in</code>
+     */
+    public static Record read(DataInput in) throws IOException {
+        String action = in.readUTF();
+        long datetime = in.readLong();
+        BigDecimal amount = new BigDecimal(in.readUTF());
+        BigDecimal balance = new BigDecimal(in.readUTF());
+        return new Record(toTransaction(action, amount, datetime), balance);
+    }
+
+    /**
+     * Recreates the <code>Transaction</code> with the given action tag, without executing it
+     * @throws IOException if <code>action</code> is not the tag of a known <code>Transaction</code>
+     */
+    static Transaction toTransaction(String action, BigDecimal amount, long datetime) throws IOException {
+        Transaction transaction;
+        switch (action) {
+        case "DEPOSIT":
+            transaction = new Deposit(amount);
+            break;
+        case "WITHDRAW":
+            transaction = new Withdraw(amount);
+            break;
+        case "INTEREST":
+            transaction = new Interest(amount);
+            break;
+        default:
+            throw new IOException("Unknown transaction type " + action);
+        }
+        transaction.datetime = new Date(datetime);
+        return transaction;
+    }
+}
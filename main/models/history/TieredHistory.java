@@ -0,0 +1,381 @@
+package main.models.history;
+
+import main.commands.Record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <code>History</code> that keeps only the most recent <code>Record</code>s in memory.
+ * Whenever more than <code>hotLimit</code> <code>Record</code>s are held, the oldest
+ * <code>segmentSize</code> of them are written to an immutable segment file in
+ * <code>directory</code> and dropped from memory. Segments are written on a background
+ * executor, so adding a <code>Record</code> never waits for the disk, and the history may
+ * briefly hold more than <code>hotLimit</code> <code>Record</code>s while a segment is being
+ * written. A segment that fails to be written is retried a few times; if it still fails,
+ * the next <code>add</code> throws instead of holding the history in memory, and
+ * the add after that tries again. Segments are read back lazily when a snapshot touches them, and the most
+ * recently used ones are cached, so heap usage is bounded by about
+ * <code>hotLimit + cachedSegments * segmentSize</code> <code>Record</code>s however long
+ * the history grows.
+ * <p>
+ * <code>Record</code>s not yet in a segment are only written to disk by <code>flush</code>
+ * or <code>close</code>. A history reopened on the same directory continues from its
+ * segments and the <code>Record</code>s last flushed, and an <code>Account</code> created
+ * over it continues from its last balance; anything added after the last flush and not
+ * spilled to a segment is lost
+ */
+public class TieredHistory implements History, Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String TAIL_FILE = "tail.bin";
+
+    private static final int SPILL_ATTEMPTS = 3;
+    private static final long SPILL_RETRY_MILLIS = 100;
+    private static final ExecutorService SHARED_SPILLER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "history-spiller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path directory;
+    private final int hotLimit;
+    private final int segmentSize;
+    private final List<Record> hot = new ArrayList<>();
+    private final Map<Integer, List<Record>> cache;
+    private final Executor spiller;
+    private final Object flushLock = new Object();
+    private int segments;
+    private boolean spilling;
+    private boolean closed;
+    private IOException spillFailure;
+
+    /**
+     * Creates a tiered history spilling to <code>directory</code> on a daemon thread shared
+     * by every history created this way
+     * @param directory Directory holding the segment files of this history only
+     * @param hotLimit Maximum number of <code>Record</code>s kept in memory
+     * @param segmentSize Number of <code>Record</code>s in each segment file, at most <code>hotLimit</code>
+     * @param cachedSegments Maximum number of segments cached in memory after being read, at least 1
+     * @throws UncheckedIOException if the directory cannot be created, or its
+     * flushed <code>Record</code>s cannot be read
+     */
+    public TieredHistory(Path directory, int hotLimit, int segmentSize, int cachedSegments) {
+        this(directory, hotLimit, segmentSize, cachedSegments, SHARED_SPILLER);
+    }
+
+    /**
+     * Creates a tiered history spilling to <code>directory</code> on <code>spiller</code>,
+     * which the caller may shut down once every history using it has been closed
+     * @param spiller Executor on which segments are written
+     * @see #TieredHistory(Path, int, int, int)
+     */
+    public TieredHistory(Path directory, int hotLimit, int segmentSize, int cachedSegments, Executor spiller) {
+        if (segmentSize <= 0 || segmentSize > hotLimit) {
+            throw new IllegalArgumentException("Segment size must be between 1 and the hot limit");
+        }
+        if (cachedSegments < 1) {
+            throw new IllegalArgumentException("At least 1 segment must be cached");
+        }
+        this.directory = directory;
+        this.hotLimit = hotLimit;
+        this.segmentSize = segmentSize;
+        this.spiller = spiller;
+        this.cache = new LinkedHashMap<>(cachedSegments, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Record>> eldest) {
+                return size() > cachedSegments;
+            }
+        };
+
+        try {
+            Files.createDirectories(directory);
+            while (Files.exists(segmentPath(segments))) {
+                segments++;
+            }
+            readTail();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the last segment could not be written, in which case
+     * <code>record</code> is not added and the segment is tried again
+     * @throws IllegalStateException if the history has been closed
+     */
+    @Override
+    public synchronized void add(Record record) {
+        if (closed) {
+            throw new IllegalStateException("History in " + directory + " has been closed");
+        }
+        if (spillFailure != null) {
+            IOException failure = spillFailure;
+            spillFailure = null; // reported once, then retried
+            startSpill();
+            throw new UncheckedIOException("History could not be spilled to " + directory, failure);
+        }
+        hot.add(record);
+        if (hot.size() > hotLimit && !spilling) {
+            startSpill();
+        }
+    }
+
+    /**
+     * Writes the <code>Record</code>s not yet in a segment to disk, after waiting
+     * for any segment being written, so that they survive reopening the history
+     * @throws IOException if the last background write of a segment failed
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            List<Record> tail;
+            int start;
+            synchronized (this) {
+                while (spilling) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for a segment to be written");
+                    }
+                }
+                if (spillFailure != null) {
+                    throw spillFailure;
+                }
+                tail = new ArrayList<>(hot);
+                start = segments * segmentSize;
+            }
+            byte[] records = CompactHistoryCodec.encode(tail);
+            writeAtomically(directory.resolve(TAIL_FILE),
+                    ByteBuffer.allocate(Integer.BYTES + records.length).putInt(start).put(records).array());
+        }
+    }
+
+    /**
+     * Flushes the history, after which no more <code>Record</code>s can be added and
+     * no more segments are written, so that the spiller can be shut down. Snapshots
+     * can still be read
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized List<Record> snapshot() {
+        return new SnapshotView(size());
+    }
+
+    @Override
+    public synchronized int size() {
+        return segments * segmentSize + hot.size();
+    }
+
+    /**
+     * Gets the number of <code>Record</code>s currently held in memory, not counting cached segments
+     */
+    public synchronized int getHotSize() {
+        return hot.size();
+    }
+
+    /**
+     * Gets the <code>Record</code> at <code>index</code>, reading its segment from disk
+     * if it has been spilled and is not cached
+     */
+    private Record get(int index) {
+        int segment;
+        synchronized (this) {
+            int spilled = segments * segmentSize;
+            if (index >= spilled) {
+                return hot.get(index - spilled);
+            }
+            segment = index / segmentSize;
+        }
+        return loadSegment(segment).get(index % segmentSize); // segments never change, so no lock is needed to read one
+    }
+
+    private List<Record> loadSegment(int segment) {
+        synchronized (cache) {
+            List<Record> records = cache.get(segment);
+            if (records != null) {
+                return records;
+            }
+        }
+        List<Record> records = readSegment(segmentPath(segment));
+        synchronized (cache) {
+            cache.put(segment, records);
+        }
+        return records;
+    }
+
+    /**
+     * Starts writing segments on the spiller, unless that is already under way.
+     * Must be called with the lock of the history held
+     */
+    private void startSpill() {
+        if (spilling || hot.size() <= hotLimit) {
+            return;
+        }
+        spilling = true;
+        try {
+            spiller.execute(this::spill);
+        } catch (RejectedExecutionException e) {
+            spilling = false;
+            spillFailure = new IOException("Spiller rejected the history in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes the oldest <code>segmentSize</code> hot <code>Record</code>s to a new segment
+     * file, in the encoding of <code>CompactHistoryCodec</code>, and then drops them from
+     * memory, until no more than <code>hotLimit</code> are held. Runs on the spiller, and
+     * only holds the lock of the history while copying and dropping <code>Record</code>s
+     */
+    private void spill() {
+        while (true) {
+            List<Record> spilled;
+            int segment;
+            synchronized (this) {
+                if (hot.size() <= hotLimit) {
+                    spilling = false;
+                    notifyAll();
+                    return;
+                }
+                spilled = new ArrayList<>(hot.subList(0, segmentSize));
+                segment = segments;
+            }
+
+            try {
+                writeSegment(segment, spilled);
+            } catch (IOException e) {
+                synchronized (this) {
+                    spillFailure = e;
+                    spilling = false;
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                hot.subList(0, segmentSize).clear();
+                segments++;
+            }
+        }
+    }
+
+    /**
+     * Writes a segment file, trying again after a pause if it fails, such as
+     * while the disk is briefly full
+     */
+    private void writeSegment(int segment, List<Record> records) throws IOException {
+        byte[] bytes = CompactHistoryCodec.encode(records);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeAtomically(segmentPath(segment), bytes);
+                return;
+            } catch (IOException e) {
+                if (attempt == SPILL_ATTEMPTS) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(SPILL_RETRY_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted retrying segment " + segment);
+            }
+        }
+    }
+
+    /**
+     * Loads the <code>Record</code>s last written by <code>flush</code> that are not in a
+     * segment. The tail file starts with the position of its first <code>Record</code>,
+     * since segments may have been written after it
+     */
+    private void readTail() throws IOException {
+        Path path = directory.resolve(TAIL_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer tail = ByteBuffer.wrap(Files.readAllBytes(path));
+        int start = tail.getInt();
+        byte[] records = new byte[tail.remaining()];
+        tail.get(records);
+        List<Record> flushed = CompactHistoryCodec.decode(records);
+
+        int alreadySpilled = segments * segmentSize - start;
+        if (alreadySpilled < 0) {
+            throw new IOException("Flushed records start after the end of the segments in " + directory);
+        }
+        if (alreadySpilled < flushed.size()) {
+            hot.addAll(flushed.subList(alreadySpilled, flushed.size()));
+        }
+    }
+
+    /**
+     * Writes <code>bytes</code> to <code>path</code> under a temporary name and then renames
+     * it, so the file is never seen half written
+     */
+    private static void writeAtomically(Path path, byte[] bytes) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, bytes);
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<Record> readSegment(Path path) {
+        try {
+            return CompactHistoryCodec.decode(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Read-only view of the first <code>size</code> <code>Record</code>s of the history.
+     * Since <code>Record</code>s never move once added, the view stays valid while
+     * the history keeps growing and spilling
+     */
+    private class SnapshotView extends AbstractList<Record> implements RandomAccess {
+        private final int size;
+
+        SnapshotView(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Record get(int index) {
+            Objects.checkIndex(index, size);
+            return TieredHistory.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
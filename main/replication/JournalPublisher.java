@@ -0,0 +1,207 @@
+package main.replication;
+
+import main.commands.Record;
+import main.models.Account;
+import main.models.history.RecordCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary side of journal shipping. The transaction history of an <code>Account</code> is
+ * its journal: an ordered log in which the <code>Record</code> at offset <code>n</code>
+ * never changes. Replicas connect over a loopback socket and send the offset they want to
+ * start from, and the publisher streams every <code>Record</code> from there on, followed by
+ * new ones as they are appended.
+ * <p>
+ * Along with its offset, a replica sends the fingerprint of the last <code>Record</code> it
+ * applied. A replica asking for an offset beyond the end of the journal, or whose last
+ * <code>Record</code> is not the one at that offset here, has applied a different history,
+ * for example that of a primary since restarted with a fresh account. It is sent a
+ * <code>RESET</code> frame and disconnected, and must discard its state and start again
+ * from offset 0. Otherwise it is sent an <code>ACCEPT</code> frame, followed by the journal.
+ * The fingerprint is a 64-bit hash of the <code>Record</code> as written by
+ * <code>RecordCodec</code>, so every field of it takes part in the comparison.
+ * <p>
+ * Each frame starts with a type byte. An <code>ENTRY</code> frame carries the offset of the
+ * <code>Record</code>, the offset of the end of the journal and the time it was sent,
+ * followed by the <code>Record</code> as written by <code>RecordCodec</code>. A
+ * <code>HEARTBEAT</code> frame, sent while the journal is idle, carries only the end of
+ * the journal and the time it was sent
+ */
+public class JournalPublisher implements Closeable {
+
+    static final byte ENTRY = 1;
+    static final byte HEARTBEAT = 2;
+    static final byte ACCEPT = 3;
+    static final byte RESET = 4;
+
+    private static final long POLL_MILLIS = 1;
+    private static final long HEARTBEAT_MILLIS = 200;
+
+    private final Account account;
+    private final ServerSocket server;
+    private final Set<Socket> replicas = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Starts publishing the journal of <code>account</code> on the loopback interface
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public JournalPublisher(Account account, int port) throws IOException {
+        this.account = account;
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+        Thread acceptor = new Thread(this::acceptReplicas, "journal-publisher");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the publisher is listening on
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Gets the number of replicas currently connected
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Stops listening and disconnects every replica. Replicas keep the state they have
+     * applied, and resume from it when they next connect
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket replica : replicas) {
+            replica.close();
+        }
+    }
+
+    private void acceptReplicas() {
+        while (!closed) {
+            try {
+                Socket replica = server.accept();
+                replica.setTcpNoDelay(true);
+                replicas.add(replica);
+                Thread sender = new Thread(() -> ship(replica), "journal-sender-" + replica.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                // server socket closed, or a replica failed to connect; either way keep to the loop condition
+            }
+        }
+    }
+
+    /**
+     * Streams the journal to one replica, from the offset it asks for, until it disconnects
+     */
+    private void ship(Socket replica) {
+        try (replica;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(replica.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(replica.getOutputStream()))) {
+
+            long offset = in.readLong();
+            long lastApplied = in.readLong();
+            if (!hasApplied(offset, lastApplied)) {
+                out.writeByte(RESET);
+                out.flush();
+                return;
+            }
+            out.writeByte(ACCEPT);
+            long lastSent = System.currentTimeMillis();
+
+            while (!closed) {
+                int head = account.getHistorySize();
+                if (offset < head) {
+                    List<Record> journal = account.getHistory();
+                    for (; offset < head; offset++) {
+                        out.writeByte(ENTRY);
+                        out.writeLong(offset);
+                        out.writeLong(head);
+                        out.writeLong(System.currentTimeMillis());
+                        RecordCodec.write(out, journal.get((int) offset));
+                    }
+                    out.flush();
+                    lastSent = System.currentTimeMillis();
+                } else if (System.currentTimeMillis() - lastSent >= HEARTBEAT_MILLIS) {
+                    out.writeByte(HEARTBEAT);
+                    out.writeLong(head);
+                    out.writeLong(System.currentTimeMillis());
+                    out.flush();
+                    lastSent = System.currentTimeMillis();
+                } else {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // replica disconnected; it will resume from its own offset when it reconnects
+        } finally {
+            replicas.remove(replica);
+        }
+    }
+
+    /**
+     * Evaluates to <code>true</code> if a replica that has applied <code>offset</code>
+     * <code>Record</code>s, the last with fingerprint <code>lastApplied</code>, has applied
+     * the start of this journal
+     */
+    private boolean hasApplied(long offset, long lastApplied) {
+        if (offset == 0) {
+            return true;
+        }
+        List<Record> journal = account.getHistory();
+        return offset <= journal.size() && fingerprint(journal.get((int) (offset - 1))) == lastApplied;
+    }
+
+    /**
+     * Gets a fingerprint of <code>record</code> that survives being written by
+     * <code>RecordCodec</code> and read back: the FNV-1a hash of its encoding
+     */
+    static long fingerprint(Record record) {
+        Fnv1aStream hash = new Fnv1aStream();
+        try {
+            RecordCodec.write(new DataOutputStream(hash), record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen, nothing is written anywhere
+        }
+        return hash.value;
+    }
+
+    /**
+     * Hashes the bytes written to it with 64-bit FNV-1a, without keeping them
+     */
+    private static class Fnv1aStream extends OutputStream {
+
+        private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long PRIME = 0x100000001b3L;
+
+        long value = OFFSET_BASIS;
+
+        @Override
+        public void write(int b) {
+            value = (value ^ (b & 0xff)) * PRIME;
+        }
+    }
+}
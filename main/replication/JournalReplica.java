@@ -0,0 +1,226 @@
+package main.replication;
+
+import main.commands.Record;
+import main.models.Account;
+import main.models.history.RecordCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Replica side of journal shipping. Connects to a <code>JournalPublisher</code>, applies
+ * every <code>Record</code> it receives to a local <code>Account</code>, and serves
+ * statements and range queries from that <code>Account</code> so they do not compete with
+ * transactions on the primary. If the connection drops, the replica reconnects and
+ * resumes from the offset it has applied up to. If the primary no longer has the history
+ * the replica applied, the replica replaces its <code>Account</code> with a fresh one and
+ * replicates the primary's history from the start
+ */
+public class JournalReplica implements Closeable {
+
+    private static final long RECONNECT_MILLIS = 500;
+
+    private final int port;
+    private volatile Account account = new Account();
+    private volatile long lastApplied; // fingerprint of the last Record applied
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    private volatile long appliedOffset;
+    private volatile long primaryOffset;
+    private volatile long lagMillis;
+    private volatile long reconnects;
+    private volatile long resets;
+
+    /**
+     * Starts replicating from the publisher listening on <code>port</code> of the loopback
+     * interface. Connection failures are retried until <code>close</code> is called
+     */
+    public JournalReplica(int port) {
+        this.port = port;
+        Thread applier = new Thread(this::replicate, "journal-replica");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /**
+     * Gets the replicated <code>Account</code>. It is only to be read from, as any
+     * change would be overwritten by the primary. After a reset, this is a new
+     * <code>Account</code>, and ones obtained earlier are no longer updated
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Gets the <code>Record</code>s with a date and time from <code>from</code>
+     * (inclusive) to <code>to</code> (exclusive), in journal order. Transactions are dated
+     * when created rather than when executed, so the journal is not ordered by date and
+     * is scanned in full
+     */
+    public List<Record> query(Date from, Date to) {
+        List<Record> matches = new ArrayList<>();
+        for (Record record : account.getHistory()) {
+            Date date = record.getDateTime();
+            if (!date.before(from) && date.before(to)) {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of <code>Record</code>s applied, which is also the offset
+     * replication resumes from after a reconnect
+     */
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    /**
+     * Gets the number of <code>Record</code>s the primary is known not to have shipped yet
+     */
+    public long getLagRecords() {
+        return Math.max(0, primaryOffset - appliedOffset);
+    }
+
+    /**
+     * Gets the time, in milliseconds, between the primary sending the most recent
+     * frame and the replica applying it
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Gets the number of times the replica has reconnected after losing the primary
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /**
+     * Gets the number of times the replica has discarded its state because the
+     * primary no longer had the history it applied
+     */
+    public long getResets() {
+        return resets;
+    }
+
+    /**
+     * Gets whether the replica is currently connected to the primary
+     */
+    public boolean isConnected() {
+        Socket current = socket;
+        return current != null && !current.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void replicate() {
+        boolean firstConnection = true;
+        while (!closed) {
+            try (Socket connection = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket = connection;
+                if (!firstConnection) {
+                    reconnects++;
+                }
+                firstConnection = false;
+                connection.setTcpNoDelay(true);
+                stream(connection);
+            } catch (IOException e) {
+                // primary unavailable or connection lost; retry below from the applied offset
+            }
+            socket = null;
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stream(Socket connection) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeLong(appliedOffset);
+        out.writeLong(lastApplied);
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        byte handshake = in.readByte();
+        if (handshake == JournalPublisher.RESET) {
+            reset();
+            return;
+        }
+        if (handshake != JournalPublisher.ACCEPT) {
+            throw new IOException("Unknown journal handshake " + handshake);
+        }
+        while (!closed) {
+            byte type = in.readByte();
+            if (type == JournalPublisher.HEARTBEAT) {
+                primaryOffset = in.readLong();
+                lagMillis = System.currentTimeMillis() - in.readLong();
+                continue;
+            }
+            if (type != JournalPublisher.ENTRY) {
+                throw new IOException("Unknown journal frame " + type);
+            }
+
+            long offset = in.readLong();
+            primaryOffset = in.readLong();
+            long sentAt = in.readLong();
+            Record record = RecordCodec.read(in);
+            if (offset != appliedOffset) {
+                throw new IOException("Expected journal offset " + appliedOffset + " but received " + offset);
+            }
+            apply(record);
+            lagMillis = System.currentTimeMillis() - sentAt;
+        }
+    }
+
+    /**
+     * Discards the replicated state, so that replication starts again from offset 0
+     */
+    private void reset() {
+        account = new Account();
+        appliedOffset = 0;
+        primaryOffset = 0;
+        lastApplied = 0;
+        resets++;
+    }
+
+    /**
+     * Brings the local <code>Account</code> to the state the primary was in
+     * after <code>record</code>
+     */
+    private void apply(Record record) {
+        Account account = this.account;
+        long version = account.beginWrite();
+        try {
+            account.setBalance(record.getBalanceValue());
+            account.setHistory(record);
+        } finally {
+            account.endWrite(version);
+        }
+        lastApplied = JournalPublisher.fingerprint(record);
+        appliedOffset++;
+    }
+}
@@ -0,0 +1,74 @@
+package main.replication;
+
+import main.views.View;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Scanner;
+
+/**
+ * Entry point of a read replica process. Start the primary with
+ * <code>java main.Main --publish &lt;port&gt;</code> and then this process with
+ * <code>java main.replication.ReplicaMain &lt;port&gt;</code> on the same machine
+ */
+public class ReplicaMain {
+
+    private static final String MENU =
+            "[P]rint statement\n[R]ange of dates\n[L]ag\n[Q]uit";
+
+    private static final String INVALID_DATE =
+            "\nThe date entered was invalid. Please enter a date as yyyy-MM-dd.";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.out.println("Usage: java main.replication.ReplicaMain <primary port>");
+            return;
+        }
+
+        Scanner sc = new Scanner(System.in);
+        View ui = View.getView();
+        try (JournalReplica replica = new JournalReplica(Integer.parseInt(args[0]))) {
+            while (true) {
+                System.out.println(MENU);
+                String input = sc.nextLine().toUpperCase();
+                if (input.equals("P")) {
+                    ui.printStatement(replica.getAccount());
+                } else if (input.equals("R")) {
+                    printRange(sc, ui, replica);
+                } else if (input.equals("L")) {
+                    System.out.println("\nconnected=" + replica.isConnected()
+                            + " applied=" + replica.getAppliedOffset()
+                            + " lagRecords=" + replica.getLagRecords()
+                            + " lagMs=" + replica.getLagMillis()
+                            + " reconnects=" + replica.getReconnects() + "\n");
+                } else if (input.equals("Q")) {
+                    return;
+                } else {
+                    ui.warnInvalidCommand();
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the statement for the dates from a start date to an end date,
+     * both inclusive, as entered by the user
+     */
+    private static void printRange(Scanner sc, View ui, JournalReplica replica) {
+        try {
+            System.out.println("Please enter the start date (yyyy-MM-dd):");
+            LocalDate from = LocalDate.parse(sc.nextLine().trim());
+            System.out.println("Please enter the end date (yyyy-MM-dd):");
+            LocalDate to = LocalDate.parse(sc.nextLine().trim()).plusDays(1);
+            ui.printStatement(replica.query(toDate(from), toDate(to)));
+        } catch (DateTimeParseException e) {
+            System.out.println(INVALID_DATE);
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,8 +1,10 @@
 package main.views;
 
 import main.commands.Record;
+import main.events.StatementPhaseEvent;
 import main.models.Account;
 
+import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -18,6 +20,7 @@ public class View {
             new HashMap<>() {{
                 put("DEPOSIT", " has been deposited to your account.");
                 put("WITHDRAW", " has been withdrawn.");
+                put("INTEREST", " of interest has been credited to your account.");
             }};
 
     private static final String DEFAULT_HEADER =
@@ -39,6 +42,28 @@ public class View {
             "\nThe amount entered was invalid. Please enter a positive value with at most 2 decimal places." +
                     " Overdraft on this account is not allowed.";
 
+    private static final String NO_MONEY =
+            "\nNo amount was entered. Please enter a positive value with at most 2 decimal places.";
+
+    private static final String NON_NUMERIC_MONEY =
+            "\nThe amount entered was not a number. Please enter digits with an optional decimal point," +
+                    " without the dollar sign.";
+
+    private static final String TOO_PRECISE_MONEY =
+            "\nThe amount entered has more than 2 decimal places. Please enter whole cents.";
+
+    private static final String NON_POSITIVE_MONEY =
+            "\nThe amount entered was not positive. Please enter an amount greater than 0.";
+
+    private static final String OVERDRAFT =
+            "\nThe amount entered is more than you can withdraw. Overdraft on this account is not allowed.";
+
+    private static final String VELOCITY_LIMIT =
+            "\nThe amount entered would exceed the withdrawal limit of this account for any 24 hours.";
+
+    private static final String ACCOUNT_BUSY =
+            "\nThe account is busy with other transactions. Please try again.";
+
     private static final String UNKNOWN_ERROR =
             "\nAn unknown error has occurred. Please try again.";
 
@@ -48,10 +73,22 @@ public class View {
 
     private static View INSTANCE;
 
+    private final PrintStream out;
+
     /**
      * Do not call constructor directly
      */
-    protected View() {}
+    protected View() {
+        this(null);
+    }
+
+    /**
+     * Do not call constructor directly
+     * @param out Stream to print to, or <code>null</code> for the console
+     */
+    protected View(PrintStream out) {
+        this.out = out;
+    }
 
     /**
      * Returns the instance of the view for the current session
@@ -64,6 +101,16 @@ public class View {
         return INSTANCE;
     }
 
+    /**
+     * Returns a new view that prints to <code>out</code> instead of the console,
+     * for sessions that do not own the console
+     * @param out Output of the session
+     * @return main.views.View object that handles the UI of the session
+     */
+    public static View getView(PrintStream out) {
+        return new View(out);
+    }
+
     /**
      * Displays the menu to prompt the user for the next action
      * based on the previous action
@@ -90,13 +137,33 @@ public class View {
      *                to display the statement for
      */
     public void printStatement(Account account) {
+        printStatement(account.getHistory());
+    }
+
+    /**
+     * Displays a statement made up of <code>records</code>, for example
+     * the transactions of an account within some date range
+     * @param records The <code>Record</code>s to display, in order
+     */
+    public void printStatement(List<Record> records) {
         List<String> dates = new ArrayList<>();
         List<String> amounts = new ArrayList<>();
         List<String> balances = new ArrayList<>();
 
-        extractRecords(account, dates, amounts, balances);
+        StatementPhaseEvent extract = new StatementPhaseEvent(StatementPhaseEvent.EXTRACT);
+        extract.begin();
+        extractRecords(records, dates, amounts, balances);
+        extract.commitFor(records.size());
+
+        StatementPhaseEvent format = new StatementPhaseEvent(StatementPhaseEvent.FORMAT);
+        format.begin();
         formatRecords(dates, amounts, balances);
+        format.commitFor(records.size());
+
+        StatementPhaseEvent print = new StatementPhaseEvent(StatementPhaseEvent.PRINT);
+        print.begin();
         printRecords(dates, amounts, balances);
+        print.commitFor(records.size());
     }
 
     /**
@@ -104,7 +171,7 @@ public class View {
      * received an invalid input command
      */
     public void warnInvalidCommand() {
-        System.out.println(INVALID_COMMAND);
+        out().println(INVALID_COMMAND);
     }
 
     /**
@@ -114,7 +181,7 @@ public class View {
      *               transaction triggering this prompt
      */
     public void queryAmountDesired(String action) {
-        System.out.println(REQUEST_STRING + action + ":");
+        out().println(REQUEST_STRING + action + ":");
     }
 
     /**
@@ -122,7 +189,63 @@ public class View {
      * received an invalid input for monetary value
      */
     public void warnInvalidValue() {
-        System.out.println(INVALID_MONEY);
+        out().println(INVALID_MONEY);
+    }
+
+    /**
+     * Displays a warning to the user that no monetary
+     * value was entered
+     */
+    public void warnNoValue() {
+        out().println(NO_MONEY);
+    }
+
+    /**
+     * Displays a warning to the user that the monetary
+     * value entered is not a number
+     */
+    public void warnValueNotNumeric() {
+        out().println(NON_NUMERIC_MONEY);
+    }
+
+    /**
+     * Displays a warning to the user that the monetary
+     * value entered has more than 2 decimal places
+     */
+    public void warnTooManyDecimals() {
+        out().println(TOO_PRECISE_MONEY);
+    }
+
+    /**
+     * Displays a warning to the user that the monetary
+     * value entered is zero or negative
+     */
+    public void warnValueNotPositive() {
+        out().println(NON_POSITIVE_MONEY);
+    }
+
+    /**
+     * Displays a warning to the user that the amount
+     * requested would overdraw the account
+     */
+    public void warnOverdraft() {
+        out().println(OVERDRAFT);
+    }
+
+    /**
+     * Displays a warning to the user that the withdrawal
+     * requested would exceed the withdrawal limit
+     */
+    public void warnVelocityLimit() {
+        out().println(VELOCITY_LIMIT);
+    }
+
+    /**
+     * Displays a warning to the user that the withdrawal could
+     * not be made because other transactions kept changing the account
+     */
+    public void warnAccountBusy() {
+        out().println(ACCOUNT_BUSY);
     }
 
     /**
@@ -130,28 +253,28 @@ public class View {
      * @param header The string to be printed before the menu
      */
     private void printMenu(String header) {
-        System.out.println(header);
-        System.out.println(MENU);
+        out().println(header);
+        out().println(MENU);
     }
 
     /**
      * Displays a goodbye message to the user before exiting
      */
     public void printGoodbyeMessage() {
-        System.out.println(GOODBYE_MESSAGE);
+        out().println(GOODBYE_MESSAGE);
     }
 
     /**
      * Extracts information from <code>Record</code>s from the
-     * transaction history in the account for which to display
-     * the statement. Helper for <code>PrintStatement</code>
-     * @param account <code>Account</code> for which the statement
-     *                is to be printed
+     * transaction history for which to display the statement.
+     * Helper for <code>PrintStatement</code>
+     * @param records <code>Record</code>s of the statement
+     *                to be printed
      * @param dates Empty <code>List</code> to be populated
      * @param amounts Empty <code>List</code> to be populated
      * @param balances Empty <code>List</code> to be populated
      */
-    private void extractRecords(Account account,
+    private void extractRecords(List<Record> records,
                                 List<String> dates,
                                 List<String> amounts,
                                 List<String> balances) {
@@ -160,7 +283,7 @@ public class View {
         amounts.add("Amount");
         balances.add("Balance");
 
-        for (Record record : account.getHistory()) {
+        for (Record record : records) {
             if (!record.containsTransaction()) continue;
 
             SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy hh:mm:ssa");
@@ -168,7 +291,7 @@ public class View {
 
             balances.add(record.getBalance());
 
-            if (record.getAction().equals("DEPOSIT")) {
+            if (record.getAction().equals("DEPOSIT") || record.getAction().equals("INTEREST")) {
                 amounts.add(record.getAmount());
             } else if (record.getAction().equals("WITHDRAW")) {
                 amounts.add("-" + record.getAmount());
@@ -224,13 +347,13 @@ public class View {
                               List<String> amounts,
                               List<String> balances) {
 
-        System.out.println();
+        out().println();
         for (int i = 0; i < dates.size(); i++) {
-            System.out.println(
+            out().println(
                     dates.get(i) + " | " + amounts.get(i) + " | " + balances.get(i)
             );
         }
-        System.out.println();
+        out().println();
     }
 
     /**
@@ -243,4 +366,12 @@ public class View {
     private String rightPadToLength(String s, int length) {
         return String.format("%1$-" + length + "s", s);
     }
+
+    /**
+     * Gets the stream to print to. The console is looked up on every call
+     * so that redirecting <code>System.out</code> takes effect
+     */
+    private PrintStream out() {
+        return out != null ? out : System.out;
+    }
 }
@@ -1,15 +1,21 @@
 package tests;
 
 import main.commands.Record;
+import main.commands.transactions.Deposit;
 import main.controllers.Controller;
 import main.models.Account;
+import main.models.history.History;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AccountTest {
     @Test
@@ -37,4 +43,35 @@ public class AccountTest {
             assertTrue(record.containsTransaction());
         }
     }
+
+    @Test
+    public void execute_historyAppendFails_balanceAndVersionUnchanged() {
+        List<Record> records = new ArrayList<>();
+        Account testAccount = new Account(1, new History() {
+            @Override
+            public void add(Record record) {
+                if (records.size() == 1) {
+                    throw new IllegalStateException("disk full");
+                }
+                records.add(record);
+            }
+
+            @Override
+            public List<Record> snapshot() {
+                return new ArrayList<>(records);
+            }
+
+            @Override
+            public int size() {
+                return records.size();
+            }
+        });
+
+        new Deposit(BigDecimal.TEN).execute(testAccount);
+        assertThrows(IllegalStateException.class, () -> new Deposit(BigDecimal.ONE).execute(testAccount));
+
+        assertEquals(0, BigDecimal.TEN.compareTo(testAccount.getBalance()));
+        assertEquals(1, testAccount.getVersion());
+        assertTrue(testAccount.tryBeginWrite(1)); // released, not left claimed
+    }
 }
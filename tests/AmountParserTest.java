@@ -0,0 +1,45 @@
+package tests;
+
+import main.controllers.AmountParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AmountParserTest {
+
+    @Test
+    public void parseCents_validAmounts() {
+        assertEquals(20000, AmountParser.parseCents("200"));
+        assertEquals(30044, AmountParser.parseCents("300.44"));
+        assertEquals(50, AmountParser.parseCents("0.5"));
+        assertEquals(50, AmountParser.parseCents(".5"));
+        assertEquals(500, AmountParser.parseCents("5."));
+        assertEquals(150, AmountParser.parseCents("+1.50000"));
+        assertEquals(1, AmountParser.parseCents("0.01"));
+    }
+
+    @Test
+    public void parseCents_invalidAmounts() {
+        assertEquals(AmountParser.EMPTY, AmountParser.parseCents(""));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents("abc"));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents("1.2.3"));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents("."));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents("-"));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents(" 5"));
+        assertEquals(AmountParser.NOT_A_NUMBER, AmountParser.parseCents("1e2"));
+        assertEquals(AmountParser.TOO_MANY_DECIMALS, AmountParser.parseCents("0.001"));
+        assertEquals(AmountParser.NOT_POSITIVE, AmountParser.parseCents("-150"));
+        assertEquals(AmountParser.NOT_POSITIVE, AmountParser.parseCents("-0.001"));
+        assertEquals(AmountParser.NOT_POSITIVE, AmountParser.parseCents("-0"));
+        assertEquals(AmountParser.NOT_POSITIVE, AmountParser.parseCents("0.00"));
+    }
+
+    @Test
+    public void parseCents_largeAmounts() {
+        assertEquals(Long.MAX_VALUE, AmountParser.parseCents("92233720368547758.07"));
+        assertEquals(AmountParser.TOO_LARGE, AmountParser.parseCents("92233720368547758.08"));
+        assertEquals(AmountParser.TOO_LARGE, AmountParser.parseCents("350000000000000000.44"));
+        assertEquals(AmountParser.TOO_LARGE, AmountParser.parseCents("92233720368547759"));
+        assertEquals(AmountParser.TOO_MANY_DECIMALS, AmountParser.parseCents("350000000000000000.441"));
+    }
+}
@@ -0,0 +1,90 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Interest;
+import main.commands.transactions.Transaction;
+import main.commands.transactions.Withdraw;
+import main.models.Account;
+import main.models.history.CompactHistoryCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class CompactHistoryCodecTest {
+
+    private static void assertSameRecord(Record expected, Record actual) {
+        assertEquals(expected.getAction(), actual.getAction());
+        assertEquals(expected.getDateTime(), actual.getDateTime());
+        assertEquals(0, expected.getAmountValue().compareTo(actual.getAmountValue()));
+        assertEquals(0, expected.getBalanceValue().compareTo(actual.getBalanceValue()));
+    }
+
+    private static void execute(Transaction transaction, Account account, long time) {
+        transaction.datetime = new Date(time);
+        transaction.execute(account);
+    }
+
+    @Test
+    public void encode_decode_roundTrip() {
+        Account account = new Account();
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < 200; i++) {
+            execute(new Deposit(new BigDecimal("100.25")), account, time += 1000);
+            execute(new Withdraw(new BigDecimal("40.10")), account, time -= 10); // out of order timestamps
+            execute(new Interest(new BigDecimal("0.01")), account, time += 86_400_000L);
+        }
+        List<Record> history = account.getHistory();
+
+        byte[] encoded = CompactHistoryCodec.encode(history);
+        List<Record> decoded = CompactHistoryCodec.decode(encoded);
+        assertEquals(history.size(), decoded.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertSameRecord(history.get(i), decoded.get(i));
+        }
+
+        List<Record> block = CompactHistoryCodec.decodeBlock(encoded, 3);
+        assertEquals(CompactHistoryCodec.BLOCK_SIZE, block.size());
+        assertSameRecord(history.get(3 * CompactHistoryCodec.BLOCK_SIZE), block.get(0));
+    }
+
+    @Test
+    public void encode_decode_largeValues() {
+        Account account = new Account();
+        execute(new Deposit(new BigDecimal("200000000000000000")), account, 1);
+        execute(new Deposit(new BigDecimal("300000000000000000.44")), account, 2);
+        execute(new Withdraw(new BigDecimal("0.01")), account, 3);
+
+        List<Record> decoded = CompactHistoryCodec.decode(CompactHistoryCodec.encode(account.getHistory()));
+        for (int i = 0; i < 3; i++) {
+            assertSameRecord(account.getHistory().get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void encode_decode_nonContiguousRecords() {
+        Account account = new Account();
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < 100; i++) {
+            execute(new Deposit(new BigDecimal("10.50")), account, time += 1000);
+            execute(new Withdraw(new BigDecimal("3.25")), account, time += 1000);
+        }
+        List<Record> withdrawals = new ArrayList<>();
+        for (Record record : account.getHistory()) {
+            if (record.getAction().equals("WITHDRAW")) {
+                withdrawals.add(record); // balances jump by the deposits left out
+            }
+        }
+
+        List<Record> decoded = CompactHistoryCodec.decode(CompactHistoryCodec.encode(withdrawals));
+        assertEquals(withdrawals.size(), decoded.size());
+        for (int i = 0; i < withdrawals.size(); i++) {
+            assertSameRecord(withdrawals.get(i), decoded.get(i));
+        }
+    }
+}
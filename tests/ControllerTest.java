@@ -1,7 +1,9 @@
 package tests;
 
 import main.controllers.Controller;
+import main.controllers.VelocityLimit;
 import main.models.Account;
+import main.models.OffHeapAccountStore;
 import org.junit.jupiter.api.Test;
 
 
@@ -118,4 +120,99 @@ public class ControllerTest {
         controller.executeInput("W", testView, testAccount); // withdraw 100.12
         assertEquals(BigDecimal.valueOf(99.88).compareTo(testAccount.getBalance()), 0);
     }
+
+    @Test
+    public void executeInput_withdraw_velocityLimit() {
+        String values = "1000\n100\n100\n100\n";
+
+        ViewStub testView = new ViewStub();
+        Account testAccount = new Account();
+        Controller controller = new Controller(new ByteArrayInputStream(values.getBytes()),
+                new VelocityLimit(null, 2));
+
+        controller.executeInput("d", testView, testAccount); // deposit 1000
+        controller.executeInput("w", testView, testAccount); // withdraw 100
+        controller.executeInput("w", testView, testAccount); // withdraw 100
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(testAccount.getBalance()));
+
+        controller.executeInput("w", testView, testAccount); // third withdrawal within 24 hours should fail
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(testAccount.getBalance()));
+    }
+
+    @Test
+    public void executeInput_withdraw_velocityLimitAmount() {
+        String values = "1000\n300\n200.01\n200\n";
+
+        ViewStub testView = new ViewStub();
+        Account testAccount = new Account();
+        Controller controller = new Controller(new ByteArrayInputStream(values.getBytes()),
+                new VelocityLimit(BigDecimal.valueOf(500), Integer.MAX_VALUE));
+
+        controller.executeInput("d", testView, testAccount); // deposit 1000
+        controller.executeInput("w", testView, testAccount); // withdraw 300
+        controller.executeInput("w", testView, testAccount); // withdraw 200.01 should fail
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(testAccount.getBalance()));
+
+        controller.executeInput("w", testView, testAccount); // withdraw 200, exactly at the limit
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(testAccount.getBalance()));
+    }
+
+    @Test
+    public void executeInput_concurrentWithdrawals_neverOverdraw() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            Account testAccount = new Account();
+            new Controller(new ByteArrayInputStream("100\n".getBytes())).executeInput("d", new ViewStub(), testAccount);
+
+            Thread[] sessions = new Thread[2];
+            for (int i = 0; i < sessions.length; i++) {
+                Controller controller = new Controller(new ByteArrayInputStream("60\n".getBytes()));
+                sessions[i] = new Thread(() -> controller.executeInput("w", new ViewStub(), testAccount));
+                sessions[i].start();
+            }
+            for (Thread session : sessions) {
+                session.join();
+            }
+
+            assertEquals(0, BigDecimal.valueOf(40).compareTo(testAccount.getBalance())); // only one of the two
+            assertEquals(2, testAccount.getHistorySize());
+        }
+    }
+
+    @Test
+    public void executeInput_withdraw_velocityLimitOffHeap() {
+        String values = "1000\n100\n100\n100\n";
+
+        ViewStub testView = new ViewStub();
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        Controller controller = new Controller(new ByteArrayInputStream(values.getBytes()),
+                new VelocityLimit(null, 1));
+
+        controller.executeInput("d", testView, store.getAccount(0)); // deposit 1000
+        controller.executeInput("w", testView, store.getAccount(0)); // withdraw 100
+        controller.executeInput("w", testView, store.getAccount(0)); // second withdrawal through a new flyweight should fail
+        controller.executeInput("w", testView, store.getAccount(0));
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(store.getAccount(0).getBalance()));
+        assertEquals(2, store.getAccount(0).getHistorySize());
+    }
+
+    @Test
+    public void executeInput_concurrentWithdrawals_neverExceedVelocityLimit() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            Account testAccount = new Account();
+            new Controller(new ByteArrayInputStream("1000\n".getBytes())).executeInput("d", new ViewStub(), testAccount);
+
+            Thread[] sessions = new Thread[2];
+            for (int i = 0; i < sessions.length; i++) {
+                Controller controller = new Controller(new ByteArrayInputStream("100\n".getBytes()),
+                        new VelocityLimit(null, 1));
+                sessions[i] = new Thread(() -> controller.executeInput("w", new ViewStub(), testAccount));
+                sessions[i].start();
+            }
+            for (Thread session : sessions) {
+                session.join();
+            }
+
+            assertEquals(0, BigDecimal.valueOf(900).compareTo(testAccount.getBalance())); // only one of the two
+        }
+    }
 }
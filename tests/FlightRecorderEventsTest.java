@@ -0,0 +1,74 @@
+package tests;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import main.controllers.Controller;
+import main.events.CommandEvent;
+import main.events.DispatchEvent;
+import main.events.HistoryAppendEvent;
+import main.events.StatementPhaseEvent;
+import main.models.Account;
+import main.views.View;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void events_depositAndPrint_recorded() throws IOException {
+        Account testAccount = new Account(7);
+        Controller controller = new Controller(new ByteArrayInputStream("200\n".getBytes()));
+        View view = View.getView(new PrintStream(OutputStream.nullOutputStream()));
+
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(DispatchEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(CommandEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(HistoryAppendEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(StatementPhaseEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            controller.executeInput("d", view, testAccount); // deposit 200
+            controller.executeInput("p", view, testAccount); // print statement
+
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        List<RecordedEvent> dispatches = ofType(events, DispatchEvent.class);
+        assertEquals(2, dispatches.size());
+        RecordedEvent deposit = dispatches.stream()
+                .filter(e -> e.getString("input").equals("d")).findFirst().orElseThrow();
+        assertEquals(7, deposit.getLong("accountId"));
+        assertEquals("DEPOSIT", deposit.getString("commandType"));
+        assertEquals(200.0, deposit.getDouble("amount"));
+        assertEquals(1, deposit.getInt("historySize"));
+
+        assertEquals(2, ofType(events, CommandEvent.class).size()); // the deposit, then a no-op for printing
+        assertEquals(1, ofType(events, HistoryAppendEvent.class).size());
+
+        List<String> phases = ofType(events, StatementPhaseEvent.class).stream()
+                .map(e -> e.getString("phase")).sorted().collect(Collectors.toList());
+        assertEquals(List.of("extract", "format", "print"), phases);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, Class<?> type) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(type.getName()))
+                .collect(Collectors.toList());
+    }
+}
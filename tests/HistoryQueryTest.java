@@ -0,0 +1,113 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.controllers.HistoryQuery;
+import main.models.Account;
+import main.models.OffHeapAccountStore;
+import main.models.history.InMemoryHistory;
+import main.models.history.IndexedHistory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+public class HistoryQueryTest {
+
+    @Test
+    public void queries_indexedAndScanned_sameResults() {
+        Account indexed = new Account(1, new IndexedHistory(new InMemoryHistory()));
+        Account scanned = new Account(2);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 5000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 2_000_000), 2);
+            if (random.nextInt(3) == 0 && amount.compareTo(indexed.getBalance()) < 0) {
+                new Withdraw(amount).execute(indexed);
+                new Withdraw(amount).execute(scanned);
+            } else {
+                new Deposit(amount).execute(indexed);
+                new Deposit(amount).execute(scanned);
+            }
+        }
+
+        HistoryQuery fast = new HistoryQuery(indexed);
+        HistoryQuery slow = new HistoryQuery(scanned);
+        BigDecimal min = BigDecimal.valueOf(10_000);
+        BigDecimal max = BigDecimal.valueOf(15_000);
+        assertEquals(amounts(slow.ofType("WITHDRAW")), amounts(fast.ofType("WITHDRAW")));
+        assertEquals(amounts(slow.inRange("WITHDRAW", min, null)), amounts(fast.inRange("WITHDRAW", min, null)));
+        assertEquals(amounts(slow.over("WITHDRAW", min)), amounts(fast.over("WITHDRAW", min)));
+        assertEquals(amounts(slow.inRange("DEPOSIT", min, max)), amounts(fast.inRange("DEPOSIT", min, max)));
+        assertEquals(amounts(slow.largest("DEPOSIT", 50)), amounts(fast.largest("DEPOSIT", 50)));
+        assertEquals(50, fast.largest("DEPOSIT", 50).size());
+    }
+
+    @Test
+    public void largest_inHistoryOrderForTies() {
+        Account account = new Account(1, new IndexedHistory(new InMemoryHistory()));
+        new Deposit(new BigDecimal("5")).execute(account);
+        new Deposit(new BigDecimal("20")).execute(account);
+        new Deposit(new BigDecimal("20.00")).execute(account);
+        new Withdraw(new BigDecimal("30")).execute(account);
+
+        List<Record> largest = new HistoryQuery(account).largest("DEPOSIT", 2);
+        assertEquals(List.of("25.00", "45.00"), largest.stream().map(Record::getBalance).collect(Collectors.toList()));
+        assertEquals(0, new HistoryQuery(account).largest("INTEREST", 5).size());
+    }
+
+    @Test
+    public void over_excludesAmountAtBound() {
+        Account account = new Account(1, new IndexedHistory(new InMemoryHistory()));
+        new Deposit(new BigDecimal("10000")).execute(account);
+        new Deposit(new BigDecimal("10000.01")).execute(account);
+        new Deposit(new BigDecimal("9999.99")).execute(account);
+
+        assertEquals(List.of("10000.01"), amounts(new HistoryQuery(account).over("DEPOSIT", BigDecimal.valueOf(10_000))));
+        assertEquals(List.of("10000.00", "10000.01"),
+                amounts(new HistoryQuery(account).inRange("DEPOSIT", BigDecimal.valueOf(10_000), null)));
+    }
+
+    @Test
+    public void add_historyFails_positionNotIndexed() {
+        boolean[] failing = {false};
+        Account account = new Account(1, new IndexedHistory(new InMemoryHistory() {
+            @Override
+            public void add(Record record) {
+                if (failing[0]) {
+                    throw new IllegalStateException("disk full");
+                }
+                super.add(record);
+            }
+        }));
+        new Deposit(new BigDecimal("5")).execute(account);
+        failing[0] = true;
+        assertThrows(IllegalStateException.class, () -> new Deposit(new BigDecimal("500")).execute(account));
+        failing[0] = false;
+        new Withdraw(new BigDecimal("1")).execute(account);
+
+        HistoryQuery query = new HistoryQuery(account);
+        assertEquals(List.of("5.00"), amounts(query.ofType("DEPOSIT")));
+        assertEquals(List.of("1.00"), amounts(query.ofType("WITHDRAW")));
+    }
+
+    @Test
+    public void queries_offHeapAccount_scanned() {
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        new Deposit(new BigDecimal("20000")).execute(store.getAccount(0));
+        new Deposit(new BigDecimal("50")).execute(store.getAccount(0));
+
+        HistoryQuery query = new HistoryQuery(store.getAccount(0));
+        assertEquals(List.of("20000.00"), amounts(query.over("DEPOSIT", BigDecimal.valueOf(10_000))));
+        assertEquals(List.of("20000.00", "50.00"), amounts(query.largest("DEPOSIT", 5)));
+    }
+
+    private static List<String> amounts(List<Record> records) {
+        return records.stream().map(Record::getAmount).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,60 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.models.history.InMemoryHistory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class InMemoryHistoryTest {
+
+    private static Record deposit(int cents) {
+        return new Record(new Deposit(BigDecimal.valueOf(cents, 2)), BigDecimal.ZERO);
+    }
+
+    @Test
+    public void snapshot_unaffectedByLaterAppends() {
+        InMemoryHistory history = new InMemoryHistory();
+        for (int i = 0; i < 3000; i++) {
+            history.add(deposit(i));
+        }
+        List<Record> snapshot = history.snapshot();
+        for (int i = 3000; i < 10000; i++) {
+            history.add(deposit(i));
+        }
+
+        assertEquals(3000, snapshot.size());
+        assertEquals(10000, history.snapshot().size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(0, BigDecimal.valueOf(i, 2).compareTo(snapshot.get(i).getAmountValue()));
+        }
+    }
+
+    @Test
+    public void snapshot_concurrentWithWriter_alwaysComplete() throws InterruptedException {
+        InMemoryHistory history = new InMemoryHistory();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                history.add(deposit(i));
+            }
+        });
+        writer.start();
+
+        int previousSize = 0;
+        while (writer.isAlive() || previousSize < 200_000) {
+            List<Record> snapshot = history.snapshot();
+            assertTrue(snapshot.size() >= previousSize);
+            if (snapshot.size() > 0) {
+                int last = snapshot.size() - 1;
+                assertEquals(0, BigDecimal.valueOf(last, 2).compareTo(snapshot.get(last).getAmountValue()));
+            }
+            previousSize = snapshot.size();
+        }
+        writer.join();
+    }
+}
@@ -0,0 +1,133 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Transaction;
+import main.commands.transactions.Withdraw;
+import main.controllers.AccrualResult;
+import main.controllers.InterestEngine;
+import main.models.Account;
+import main.models.AccountRegistry;
+import main.models.history.InMemoryHistory;
+import main.models.history.IndexedHistory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class InterestEngineTest {
+
+    private static final BigDecimal RATE = new BigDecimal("0.0365"); // 0.01% a day
+
+    private static Record executeOn(Transaction transaction, Account account, LocalDate date) {
+        transaction.datetime = Date.from(date.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+        return transaction.execute(account);
+    }
+
+    @Test
+    public void dailyBalanceInterest_balanceChangesMidPeriod() {
+        Account account = new Account();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        executeOn(new Deposit(new BigDecimal("1000")), account, start.minusDays(5)); // opening balance 1000
+        executeOn(new Deposit(new BigDecimal("1000")), account, start.plusDays(10)); // 2000 from day 10
+        executeOn(new Withdraw(new BigDecimal("500")), account, start.plusDays(20)); // 1500 from day 20
+        executeOn(new Deposit(new BigDecimal("9999")), account, start.plusDays(30)); // after the period
+
+        // 10 days at 1000, 10 days at 2000, 10 days at 1500
+        BigDecimal interest = InterestEngine.dailyBalanceInterest(
+                account.getHistory(), start, start.plusDays(30), RATE);
+        assertEquals(0, new BigDecimal("4.50").compareTo(interest));
+    }
+
+    @Test
+    public void dailyBalanceInterest_historyOutOfDateOrder() {
+        Account account = new Account();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        executeOn(new Deposit(new BigDecimal("1000")), account, start.minusDays(5)); // opening balance 1000
+        executeOn(new Deposit(new BigDecimal("1000")), account, start.plusDays(20)); // 2500 from day 20
+        executeOn(new Deposit(new BigDecimal("9999")), account, start.plusDays(30)); // after the period
+        executeOn(new Deposit(new BigDecimal("500")), account, start.plusDays(10)); // backdated, 1500 from day 10
+
+        // 10 days at 1000, 10 days at 1500, 10 days at 2500
+        BigDecimal interest = InterestEngine.dailyBalanceInterest(
+                account.getHistory(), start, start.plusDays(30), RATE);
+        assertEquals(0, new BigDecimal("5.00").compareTo(interest));
+    }
+
+    @Test
+    public void accrue_postsInterestToEveryFundedAccount() {
+        AccountRegistry registry = new AccountRegistry();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 10000; i++) {
+            Account account = registry.open();
+            if (i % 2 == 0) {
+                executeOn(new Deposit(new BigDecimal("100")), account, start.minusDays(1));
+            }
+        }
+
+        InterestEngine engine = new InterestEngine(RATE);
+        AccrualResult result = engine.accrue(registry, start, start.plusDays(10), Duration.ofMinutes(1));
+
+        assertEquals(5000, result.getPosted().size());
+        assertTrue(result.isComplete());
+        Date periodEnd = Date.from(start.plusDays(10).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        for (Map.Entry<Long, Record> posting : result.getPosted().entrySet()) {
+            assertEquals(1, posting.getKey() % 2); // ids start at 1, so funded accounts have odd ids
+            assertEquals("INTEREST", posting.getValue().getAction());
+            assertEquals(periodEnd, posting.getValue().getDateTime());
+            assertEquals(0, new BigDecimal("100.10").compareTo(posting.getValue().getBalanceValue()));
+        }
+        assertEquals(2, registry.get(1).getHistory().size());
+    }
+
+    @Test
+    public void accrue_budgetRunsOut_skippedAccountsResumedWithoutDoubleCredit() {
+        AccountRegistry registry = new AccountRegistry();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 1000; i++) {
+            executeOn(new Deposit(new BigDecimal("100")), registry.open(), start.minusDays(1));
+        }
+
+        InterestEngine engine = new InterestEngine(RATE);
+        AccrualResult first = engine.accrue(registry, start, start.plusDays(10), Duration.ZERO);
+        assertEquals(0, first.getPosted().size());
+        assertEquals(1000, first.getSkippedAccounts().size());
+
+        List<Account> skipped = first.getSkippedAccounts().subList(0, 400).stream()
+                .map(registry::get).collect(Collectors.toList());
+        AccrualResult resumed = engine.accrue(skipped, start, start.plusDays(10), Duration.ofMinutes(1));
+        assertEquals(400, resumed.getPosted().size());
+
+        AccrualResult rerun = engine.accrue(registry, start, start.plusDays(10), Duration.ofMinutes(1));
+        assertEquals(600, rerun.getPosted().size()); // only the accounts not yet credited
+        assertTrue(rerun.isComplete());
+        for (Account account : registry.getAccounts()) {
+            assertEquals(0, new BigDecimal("100.10").compareTo(account.getBalance()));
+        }
+    }
+
+    @Test
+    public void accrue_indexedHistory_postedOnce() {
+        Account account = new Account(1, new IndexedHistory(new InMemoryHistory()));
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        executeOn(new Deposit(new BigDecimal("100")), account, start.minusDays(1));
+
+        InterestEngine engine = new InterestEngine(RATE);
+        assertEquals(1, engine.accrue(List.of(account), start, start.plusDays(10), Duration.ofMinutes(1))
+                .getPosted().size());
+        assertEquals(0, engine.accrue(List.of(account), start, start.plusDays(10), Duration.ofMinutes(1))
+                .getPosted().size());
+        assertEquals(0, new BigDecimal("100.10").compareTo(account.getBalance()));
+    }
+}
@@ -0,0 +1,108 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.models.OffHeapAccount;
+import main.models.OffHeapAccountStore;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class OffHeapAccountStoreTest {
+
+    @Test
+    public void flyweights_shareSlotState() {
+        OffHeapAccountStore store = new OffHeapAccountStore(3_000_000);
+
+        new Deposit(new BigDecimal("200")).execute(store.getAccount(2_500_000));
+        new Withdraw(new BigDecimal("150.12")).execute(store.getAccount(2_500_000));
+
+        OffHeapAccount account = store.getAccount(2_500_000);
+        assertEquals(0, new BigDecimal("49.88").compareTo(account.getBalance()));
+        assertEquals(2, account.getHistory().size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(store.getAccount(0).getBalance()));
+        assertEquals(0, store.getAccount(0).getHistory().size());
+    }
+
+    @Test
+    public void balance_largerThanLong() {
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        OffHeapAccount account = store.getAccount(0);
+
+        new Deposit(new BigDecimal("350000000000000000.44")).execute(account);
+        assertEquals(0, new BigDecimal("350000000000000000.44").compareTo(account.getBalance()));
+
+        new Withdraw(new BigDecimal("700000000000000000.88")).execute(account);
+        assertEquals(0, new BigDecimal("-350000000000000000.44").compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void balance_concurrentWrites_neverTorn() throws InterruptedException {
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        BigDecimal small = new BigDecimal("-0.01"); // both halves all ones
+        BigDecimal large = new BigDecimal("184467440737095516.16"); // 2^64 cents, low half zero
+
+        Thread writer = new Thread(() -> {
+            OffHeapAccount account = store.getAccount(0);
+            for (int i = 0; i < 200_000; i++) {
+                long version = account.beginWrite();
+                account.setBalance(i % 2 == 0 ? small : large);
+                account.endWrite(version);
+            }
+        });
+        writer.start();
+        OffHeapAccount reader = store.getAccount(0);
+        while (writer.isAlive()) {
+            BigDecimal balance = reader.getBalance();
+            assertTrue(balance.signum() == 0 || balance.compareTo(small) == 0 || balance.compareTo(large) == 0,
+                    "torn balance " + balance);
+        }
+        writer.join();
+    }
+
+    @Test
+    public void history_interleavedAccounts_keptApartOffHeap() {
+        OffHeapAccountStore store = new OffHeapAccountStore(1000);
+        for (int round = 1; round <= 20; round++) {
+            for (long id = 0; id < 1000; id++) {
+                new Deposit(BigDecimal.valueOf(id + round)).execute(store.getAccount(id));
+            }
+        }
+
+        for (long id = 0; id < 1000; id += 37) {
+            List<Record> history = store.getAccount(id).getHistory();
+            assertEquals(20, history.size());
+            BigDecimal balance = BigDecimal.ZERO;
+            for (int round = 1; round <= 20; round++) {
+                Record record = history.get(round - 1);
+                balance = balance.add(BigDecimal.valueOf(id + round));
+                assertEquals(0, BigDecimal.valueOf(id + round).compareTo(record.getAmountValue()));
+                assertEquals(0, balance.compareTo(record.getBalanceValue()));
+            }
+        }
+    }
+
+    @Test
+    public void history_concurrentAppends_snapshotsConsistent() throws InterruptedException {
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                new Deposit(BigDecimal.ONE).execute(store.getAccount(0));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Record> history = store.getAccount(0).getHistory();
+            if (!history.isEmpty()) { // the n-th deposit leaves a balance of n
+                assertEquals(0, BigDecimal.valueOf(history.size()).compareTo(history.get(history.size() - 1).getBalanceValue()));
+            }
+        }
+        writer.join();
+        assertEquals(20_000, store.getAccount(0).getHistorySize());
+    }
+}
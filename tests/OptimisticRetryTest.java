@@ -0,0 +1,61 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.controllers.OptimisticRetry;
+import main.models.Account;
+import main.models.OffHeapAccountStore;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+public class OptimisticRetryTest {
+
+    @Test
+    public void execute_staleVersion_failsWithoutChangingAccount() {
+        Account account = new Account();
+        long version = account.getVersion();
+        new Deposit(new BigDecimal("100")).execute(account);
+        assertEquals(version + 1, account.getVersion());
+
+        Record stale = new Withdraw(new BigDecimal("60")).execute(account, version);
+        assertFalse(stale.containsTransaction());
+        assertEquals(0, new BigDecimal("100").compareTo(account.getBalance()));
+
+        Record fresh = new Withdraw(new BigDecimal("60")).execute(account, account.getVersion());
+        assertTrue(fresh.containsTransaction());
+        assertEquals(0, new BigDecimal("40").compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void execute_contendedWithdrawals_neverOverdraw() throws InterruptedException {
+        OffHeapAccountStore store = new OffHeapAccountStore(1);
+        Account account = store.getAccount(0);
+        new Deposit(new BigDecimal("1000")).execute(account);
+        OptimisticRetry retry = new OptimisticRetry(Integer.MAX_VALUE);
+        BigDecimal amount = new BigDecimal("1.00");
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            Account flyweight = store.getAccount(0); // versions are shared through the slot
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    retry.execute(flyweight, a -> a.getBalance().compareTo(amount) >= 0 ? new Withdraw(amount) : null);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.getBalance()));
+        assertEquals(1001, account.getHistorySize());
+        assertEquals(1001, account.getVersion());
+    }
+}
@@ -0,0 +1,178 @@
+package tests;
+
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.models.Account;
+import main.replication.JournalPublisher;
+import main.replication.JournalReplica;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.BindException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+public class ReplicationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static void awaitApplied(JournalReplica replica, long offset) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (replica.getAppliedOffset() < offset && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(offset, replica.getAppliedOffset());
+    }
+
+    /**
+     * Restarts publishing on <code>port</code>, waiting for the connections of the
+     * previous publisher to finish closing
+     */
+    private static JournalPublisher reopen(Account primary, int port) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                return new JournalPublisher(primary, port);
+            } catch (BindException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Test
+    public void replica_catchesUpAndResumesAfterReconnect() throws Exception {
+        Account primary = new Account();
+        for (int i = 0; i < 100; i++) {
+            new Deposit(new BigDecimal("10.50")).execute(primary);
+        }
+
+        JournalPublisher publisher = new JournalPublisher(primary, 0);
+        int port = publisher.getPort();
+        try (JournalReplica replica = new JournalReplica(port)) {
+            awaitApplied(replica, 100);
+            assertEquals(0, primary.getBalance().compareTo(replica.getAccount().getBalance()));
+
+            publisher.close(); // primary goes away while transactions continue
+            for (int i = 0; i < 50; i++) {
+                new Withdraw(new BigDecimal("1.25")).execute(primary);
+            }
+            publisher = reopen(primary, port);
+
+            awaitApplied(replica, 150);
+            assertEquals(0, primary.getBalance().compareTo(replica.getAccount().getBalance()));
+            assertEquals(150, replica.getAccount().getHistory().size());
+            assertTrue(replica.getReconnects() >= 1);
+            assertEquals(0, replica.getLagRecords());
+            assertEquals(150, replica.query(new Date(0), new Date(Long.MAX_VALUE)).size());
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    public void replica_primaryRestartedWithFreshAccount_resets() throws Exception {
+        Account primary = new Account();
+        for (int i = 0; i < 10; i++) {
+            new Deposit(new BigDecimal("10")).execute(primary);
+        }
+
+        JournalPublisher publisher = new JournalPublisher(primary, 0);
+        int port = publisher.getPort();
+        try (JournalReplica replica = new JournalReplica(port)) {
+            awaitApplied(replica, 10);
+            publisher.close();
+
+            Account restarted = new Account(); // shorter history than the replica has applied
+            new Deposit(new BigDecimal("7")).execute(restarted);
+            new Deposit(new BigDecimal("8")).execute(restarted);
+            publisher = reopen(restarted, port);
+
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (replica.getResets() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, replica.getResets());
+            awaitApplied(replica, 2);
+            assertEquals(0, new BigDecimal("15").compareTo(replica.getAccount().getBalance()));
+            assertEquals(2, replica.getAccount().getHistory().size());
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    public void query_journalOutOfDateOrder_findsEveryRecordInRange() throws Exception {
+        Account primary = new Account();
+        long[] days = {3, 1, 4, 1, 5, 9, 2, 6};
+        for (long day : days) {
+            Deposit deposit = new Deposit(BigDecimal.ONE);
+            deposit.datetime = new Date(day * 86_400_000L); // created long before being executed
+            deposit.execute(primary);
+        }
+
+        try (JournalPublisher publisher = new JournalPublisher(primary, 0);
+             JournalReplica replica = new JournalReplica(publisher.getPort())) {
+            awaitApplied(replica, days.length);
+            assertEquals(4, replica.query(new Date(86_400_000L), new Date(4 * 86_400_000L)).size()); // days 1 to 3
+        }
+    }
+
+    /**
+     * Asks a <code>ReplicaMain</code> process for its lag metrics until it has applied
+     * <code>offset</code> <code>Record</code>s
+     */
+    private static void awaitApplied(PrintWriter in, BufferedReader out, long offset) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        String metrics;
+        do {
+            Thread.sleep(10);
+            in.println("L");
+            metrics = out.readLine();
+            while (metrics != null && !metrics.startsWith("connected=")) {
+                metrics = out.readLine();
+            }
+            assertNotNull(metrics, "replica process exited");
+        } while (!metrics.contains(" applied=" + offset + " ") && System.currentTimeMillis() < deadline);
+        assertTrue(metrics.contains(" applied=" + offset + " "), metrics);
+    }
+
+    @Test
+    public void replicaMain_separateProcess_followsPrimary() throws Exception {
+        Account primary = new Account();
+        for (int i = 0; i < 20; i++) {
+            new Deposit(new BigDecimal("10")).execute(primary);
+        }
+
+        try (JournalPublisher publisher = new JournalPublisher(primary, 0)) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process replica = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "main.replication.ReplicaMain", String.valueOf(publisher.getPort()))
+                    .redirectErrorStream(true)
+                    .start();
+            try (PrintWriter in = new PrintWriter(replica.getOutputStream(), true);
+                 BufferedReader out = new BufferedReader(new InputStreamReader(replica.getInputStream()))) {
+                awaitApplied(in, out, 20);
+
+                for (int i = 0; i < 5; i++) {
+                    new Withdraw(new BigDecimal("3")).execute(primary);
+                }
+                awaitApplied(in, out, 25);
+
+                in.println("Q");
+                assertTrue(replica.waitFor(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+                assertEquals(0, replica.exitValue());
+            } finally {
+                replica.destroyForcibly();
+            }
+        }
+    }
+}
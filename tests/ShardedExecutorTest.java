@@ -0,0 +1,130 @@
+package tests;
+
+import main.commands.Command;
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.engine.ShardedExecutor;
+import main.models.Account;
+import main.models.AccountRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ShardedExecutorTest {
+
+    @Test
+    public void submit_concurrentProducers_everyDepositApplied() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 0; i < 16; i++) {
+            registry.open();
+        }
+
+        List<CompletableFuture<Record>> results = new ArrayList<>();
+        try (ShardedExecutor executor = new ShardedExecutor(registry, 4)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        CompletableFuture<Record> result =
+                                executor.submit(1 + i % 16, new Deposit(new BigDecimal("0.01")));
+                        if (i % 1000 == 0) {
+                            synchronized (results) {
+                                results.add(result);
+                            }
+                        }
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        }
+
+        for (CompletableFuture<Record> result : results) {
+            assertTrue(result.isDone());
+            assertEquals("DEPOSIT", result.get().getAction());
+        }
+        for (long id = 1; id <= 16; id++) {
+            assertEquals(0, new BigDecimal("125.00").compareTo(registry.get(id).getBalance()));
+            assertEquals(12_500, registry.get(id).getHistorySize());
+        }
+    }
+
+    @Test
+    public void submit_unknownAccount_completesExceptionally() throws Exception {
+        try (ShardedExecutor executor = new ShardedExecutor(new AccountRegistry(), 2)) {
+            CompletableFuture<Record> result = executor.submit(42, new Deposit(BigDecimal.ONE));
+            try {
+                result.get();
+                assertTrue(false);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+    @Test
+    public void submit_commandThrowsError_shardKeepsRunning() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        registry.open();
+        try (ShardedExecutor executor = new ShardedExecutor(registry, 1)) {
+            CompletableFuture<Record> failed = executor.submit(1, new Command() {
+                @Override
+                public Record execute(Account account) {
+                    throw new AssertionError("boom");
+                }
+            });
+            try {
+                failed.get();
+                assertTrue(false);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssertionError);
+            }
+            assertTrue(executor.submit(1, new Deposit(BigDecimal.ONE)).get().containsTransaction());
+        }
+    }
+
+    @Test
+    public void close_racingProducers_everyAcceptedCommandCompletes() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        registry.open();
+        ShardedExecutor executor = new ShardedExecutor(registry, 1);
+        List<CompletableFuture<Record>> accepted = Collections.synchronizedList(new ArrayList<>());
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        accepted.add(executor.submit(1, new Deposit(new BigDecimal("0.01"))));
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        Thread.sleep(50);
+        executor.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        for (CompletableFuture<Record> result : accepted) {
+            assertTrue(result.get(10, TimeUnit.SECONDS).containsTransaction());
+        }
+        assertEquals(accepted.size(), registry.get(1).getHistorySize());
+    }
+}
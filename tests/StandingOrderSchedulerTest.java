@@ -0,0 +1,283 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Withdraw;
+import main.controllers.VelocityLimit;
+import main.engine.StandingOrderScheduler;
+import main.engine.TimerWheel;
+import main.models.Account;
+import main.models.AccountRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class StandingOrderSchedulerTest {
+
+    private static final long SECOND = 1000;
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    @Test
+    public void timerWheel_longDeadlines_fireOnTimeAfterCascading() {
+        TimerWheel<Long> wheel = new TimerWheel<>(SECOND, 0);
+        long[] deadlines = {5 * SECOND, 300 * SECOND, 70_000 * SECOND, 40 * DAY, 3000 * DAY};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 3000 * DAY; now += 1000 * SECOND) {
+            long time = now;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline <= time && time - deadline < 1000 * SECOND); // not early, not a step late
+                fired.add(deadline);
+            });
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void timerWheel_longIdle_jumpsToOccupiedSlots() {
+        TimerWheel<Long> wheel = new TimerWheel<>(1, 0);
+        long far = 1L << 40; // ticks, which stepping one at a time would take hours to reach
+        wheel.schedule(far, far);
+        wheel.schedule(far + 300, far + 300);
+
+        List<Long> fired = new ArrayList<>();
+        assertEquals(0, wheel.advance(far - 1, fired::add));
+        assertEquals(1, wheel.advance(far, fired::add));
+        assertEquals(1, wheel.advance(far + 1000, fired::add));
+        assertEquals(List.of(far, far + 300), fired);
+    }
+
+    @Test
+    public void timerWheel_maxValues_restFireOnNextAdvance() {
+        TimerWheel<Long> wheel = new TimerWheel<>(SECOND, 0);
+        for (long i = 0; i < 10; i++) {
+            wheel.schedule(i, 5 * SECOND); // one slot
+        }
+        wheel.schedule(10L, 6 * SECOND);
+
+        List<Long> fired = new ArrayList<>();
+        assertEquals(4, wheel.advance(10 * SECOND, 4, fired::add));
+        assertEquals(4, wheel.advance(10 * SECOND, 4, fired::add));
+        assertEquals(3, wheel.advance(10 * SECOND, 4, fired::add));
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void timerWheel_randomDeadlines_fireInOrderWithinATick() {
+        SplittableRandom random = new SplittableRandom(42);
+        TimerWheel<Long> wheel = new TimerWheel<>(10, 0);
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = random.nextLong(1L << random.nextInt(1, 36));
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] last = {0};
+        long now = 0;
+        while (wheel.size() > 0) {
+            now += random.nextLong(1L << random.nextInt(1, 34));
+            long time = now;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline <= time);
+                assertTrue((deadline + 9) / 10 >= (last[0] + 9) / 10); // in order of deadline tick
+                last[0] = deadline;
+            });
+        }
+    }
+
+    @Test
+    public void runDue_recurringDeposit_firesEachPeriod() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", new BigDecimal("100.50"), DAY, 30 * DAY);
+
+        assertEquals(0, scheduler.runDue(DAY - SECOND).size()); // not yet due
+        assertEquals(1, scheduler.runDue(DAY).size());
+        assertEquals(2, scheduler.runDue(61 * DAY).size()); // two more months
+        assertEquals(0, new BigDecimal("301.50").compareTo(account.getBalance()));
+        assertEquals(3, account.getHistory().size());
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void runDue_withdrawalAboveBalance_notExecuted() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "WITHDRAW", BigDecimal.valueOf(50), DAY, 0);
+
+        List<Record> records = scheduler.runDue(DAY);
+        assertEquals(1, records.size());
+        assertTrue(!records.get(0).containsTransaction());
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.getBalance()));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void cancel_pendingOrder_neverFires() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        long order = scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.TEN, DAY, DAY);
+
+        assertTrue(scheduler.cancel(order));
+        assertTrue(!scheduler.cancel(order));
+        assertEquals(0, scheduler.runDue(10 * DAY).size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void saveAndLoad_afterRestart_missedOccurrencesExecuted() throws IOException {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.valueOf(1000), DAY, 7 * DAY);
+        long cancelled = scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.ONE, DAY, 0);
+        scheduler.cancel(cancelled);
+        scheduler.runDue(DAY);
+
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        scheduler.save(new DataOutputStream(saved));
+
+        StandingOrderScheduler restarted = new StandingOrderScheduler(registry, 20 * DAY);
+        restarted.load(new DataInputStream(new ByteArrayInputStream(saved.toByteArray())));
+        assertEquals(1, restarted.size());
+        assertEquals(2, restarted.runDue(20 * DAY).size()); // days 8 and 15 were missed
+        assertEquals(0, BigDecimal.valueOf(3000).compareTo(account.getBalance()));
+
+        long next = restarted.schedule(account.getId(), "WITHDRAW", BigDecimal.ONE, 21 * DAY, 0);
+        assertTrue(next > cancelled); // ids are not reused after loading
+    }
+
+    @Test
+    public void runDue_missedOccurrences_datedWhenDue() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.TEN, DAY, 30 * DAY);
+
+        scheduler.runDue(61 * DAY);
+        List<Record> history = account.getHistory();
+        assertEquals(3, history.size());
+        assertEquals(DAY, history.get(0).getDateTime().getTime());
+        assertEquals(31 * DAY, history.get(1).getDateTime().getTime());
+        assertEquals(61 * DAY, history.get(2).getDateTime().getTime());
+    }
+
+    @Test
+    public void runDue_withdrawalsBeyondVelocityLimit_notExecuted() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, SECOND, 0, new VelocityLimit(null, 1));
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.valueOf(1000), SECOND, 0);
+        scheduler.schedule(account.getId(), "WITHDRAW", BigDecimal.TEN, DAY, 0);
+        scheduler.schedule(account.getId(), "WITHDRAW", BigDecimal.TEN, DAY, 0);
+
+        List<Record> records = scheduler.runDue(DAY);
+        assertEquals(3, records.size());
+        assertEquals(0, BigDecimal.valueOf(990).compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void runDue_withdrawalKeepsConflicting_retriedNextRun() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.valueOf(100), SECOND, 0);
+        scheduler.runDue(SECOND);
+        scheduler.schedule(account.getId(), "WITHDRAW", BigDecimal.TEN, DAY, 0);
+
+        long version = account.beginWrite(); // another transaction holds the account throughout
+        assertEquals(0, scheduler.runDue(DAY).size());
+        assertEquals(1, scheduler.size());
+        account.endWrite(version);
+
+        List<Record> records = scheduler.runDue(DAY);
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).containsTransaction());
+        assertEquals(DAY, records.get(0).getDateTime().getTime());
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(account.getBalance()));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void runDue_transactionWaiting_schedulingNotBlocked() throws InterruptedException {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.TEN, DAY, 0);
+
+        long version = account.beginWrite();
+        Thread runner = new Thread(() -> scheduler.runDue(DAY)); // waits for the account
+        runner.start();
+        while (scheduler.size() != 0) {
+            Thread.onSpinWait(); // the deposit has been taken off the wheel
+        }
+        long next = scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.ONE, 2 * DAY, 0);
+        assertTrue(scheduler.cancel(next));
+        account.endWrite(version);
+        runner.join();
+
+        assertEquals(0, BigDecimal.TEN.compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void runDue_missedWithdrawalsBeyondVelocityLimit_allCaughtUp() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, SECOND, 0, new VelocityLimit(null, 1));
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.valueOf(1000), SECOND, 0);
+        scheduler.runDue(SECOND);
+        scheduler.schedule(account.getId(), "WITHDRAW", BigDecimal.TEN, DAY, DAY);
+
+        Withdraw live = new Withdraw(BigDecimal.TEN); // made by the customer before the missed orders are caught up
+        live.datetime = new Date(5 * DAY);
+        live.execute(account);
+
+        List<Record> records = scheduler.runDue(5 * DAY); // one a day, each within the limit on its own day
+        assertEquals(5, records.size());
+        for (int day = 1; day <= 4; day++) {
+            assertTrue(records.get(day - 1).containsTransaction());
+        }
+        assertTrue(!records.get(4).containsTransaction()); // same day as the customer's withdrawal
+        assertEquals(0, BigDecimal.valueOf(950).compareTo(account.getBalance()));
+    }
+
+    @Test
+    public void runDue_longOutage_executedInBatches() {
+        AccountRegistry registry = new AccountRegistry();
+        Account account = registry.open();
+        StandingOrderScheduler scheduler = new StandingOrderScheduler(registry, 0);
+        scheduler.schedule(account.getId(), "DEPOSIT", BigDecimal.ONE, SECOND, SECOND);
+
+        long outage = (StandingOrderScheduler.MAX_BATCH * 5 / 2) * SECOND;
+        assertEquals(StandingOrderScheduler.MAX_BATCH, scheduler.runDue(outage).size());
+        assertTrue(scheduler.isBehind());
+        assertEquals(StandingOrderScheduler.MAX_BATCH, scheduler.runDue(outage).size());
+        assertEquals(StandingOrderScheduler.MAX_BATCH / 2, scheduler.runDue(outage).size());
+        assertTrue(!scheduler.isBehind());
+
+        List<Record> history = account.getHistory();
+        assertEquals(StandingOrderScheduler.MAX_BATCH * 5 / 2, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals((i + 1) * SECOND, history.get(i).getDateTime().getTime()); // oldest first
+        }
+    }
+}
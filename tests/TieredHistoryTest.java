@@ -0,0 +1,135 @@
+package tests;
+
+import main.commands.Record;
+import main.commands.transactions.Deposit;
+import main.commands.transactions.Withdraw;
+import main.models.Account;
+import main.models.history.TieredHistory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class TieredHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void history_spillsToSegmentsAndReadsBackInOrder() throws IOException {
+        TieredHistory history = new TieredHistory(directory, 100, 50, 2);
+        Account account = new Account(1, history);
+
+        for (int i = 1; i <= 1000; i++) {
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+        }
+        history.flush(); // waits for segments being written in the background
+        assertTrue(history.getHotSize() <= 100);
+
+        List<Record> records = account.getHistory();
+        assertEquals(1000, records.size());
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < records.size(); i++) {
+            balance = balance.add(BigDecimal.valueOf(i + 1));
+            assertEquals(0, BigDecimal.valueOf(i + 1).compareTo(records.get(i).getAmountValue()));
+            assertEquals(0, balance.compareTo(records.get(i).getBalanceValue()));
+        }
+    }
+
+    @Test
+    public void snapshot_unaffectedByLaterSpills() throws IOException {
+        TieredHistory history = new TieredHistory(directory, 10, 10, 1);
+        Account account = new Account(1, history);
+
+        for (int i = 1; i <= 5; i++) {
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+        }
+        List<Record> snapshot = account.getHistory();
+        for (int i = 6; i <= 50; i++) {
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+        }
+        history.close();
+
+        assertEquals(5, snapshot.size());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(snapshot.get(4).getAmountValue()));
+    }
+
+    @Test
+    public void reopen_afterClose_keepsUnspilledRecords() throws IOException {
+        TieredHistory history = new TieredHistory(directory, 10, 10, 1);
+        Account account = new Account(1, history);
+        for (int i = 1; i <= 25; i++) {
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+        }
+        history.flush();
+        for (int i = 26; i <= 45; i++) { // spilled past the flushed records, then flushed again
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+        }
+        history.close();
+
+        TieredHistory reopened = new TieredHistory(directory, 10, 10, 1);
+        assertEquals(45, reopened.size());
+        List<Record> records = reopened.snapshot();
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(0, BigDecimal.valueOf(i + 1).compareTo(records.get(i).getAmountValue()));
+        }
+    }
+
+    @Test
+    public void reopen_accountContinuesFromSpilledHistory() throws IOException {
+        TieredHistory history = new TieredHistory(directory, 10, 5, 1);
+        Account account = new Account(1, history);
+        for (int i = 1; i <= 40; i++) {
+            new Deposit(BigDecimal.valueOf(i)).execute(account);
+            if (i % 4 == 0) {
+                new Withdraw(BigDecimal.ONE).execute(account);
+            }
+        }
+        BigDecimal balance = account.getBalance();
+        history.close();
+        assertThrows(IllegalStateException.class, () -> new Deposit(BigDecimal.ONE).execute(account));
+
+        Account restarted = new Account(1, new TieredHistory(directory, 10, 5, 1));
+        assertEquals(0, balance.compareTo(restarted.getBalance()));
+        assertEquals(50, restarted.getVersion());
+        assertTrue(new Deposit(BigDecimal.TEN).execute(restarted, 50).containsTransaction());
+        List<Record> records = restarted.getHistory();
+        assertEquals(51, records.size());
+        assertEquals(0, balance.add(BigDecimal.TEN).compareTo(records.get(50).getBalanceValue()));
+    }
+
+    @Test
+    public void add_spillFails_reportedAndRetried() throws IOException {
+        Path blocked = Files.createDirectories(directory.resolve("segment-0.bin.tmp")); // segment 0 cannot be written
+        TieredHistory history = new TieredHistory(directory, 10, 10, 1, Runnable::run);
+        Account account = new Account(1, history);
+        for (int i = 1; i <= 11; i++) { // the 11th starts a spill, which fails
+            new Deposit(BigDecimal.ONE).execute(account);
+        }
+
+        assertThrows(UncheckedIOException.class, () -> new Deposit(BigDecimal.ONE).execute(account));
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(account.getBalance()));
+        assertEquals(11, history.getHotSize());
+
+        Files.delete(blocked);
+        assertThrows(UncheckedIOException.class, () -> new Deposit(BigDecimal.ONE).execute(account)); // and retried
+        new Deposit(BigDecimal.ONE).execute(account);
+        assertEquals(0, BigDecimal.valueOf(12).compareTo(account.getBalance()));
+        assertEquals(2, history.getHotSize());
+        assertEquals(12, account.getHistory().size());
+    }
+
+    @Test
+    public void constructor_noCachedSegments_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TieredHistory(directory, 10, 10, 0));
+    }
+}
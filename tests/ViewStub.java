@@ -27,6 +27,27 @@ public class ViewStub extends View {
     @Override
     public void warnInvalidValue() {}
 
+    @Override
+    public void warnNoValue() {}
+
+    @Override
+    public void warnValueNotNumeric() {}
+
+    @Override
+    public void warnTooManyDecimals() {}
+
+    @Override
+    public void warnValueNotPositive() {}
+
+    @Override
+    public void warnOverdraft() {}
+
+    @Override
+    public void warnVelocityLimit() {}
+
+    @Override
+    public void warnAccountBusy() {}
+
     @Override
     public void printGoodbyeMessage() {}
 }
@@ -0,0 +1,64 @@
+package tests;
+
+import main.models.WithdrawalWindow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WithdrawalWindowTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Test
+    public void totals_withinWindow() {
+        WithdrawalWindow window = new WithdrawalWindow();
+        window.record(BigDecimal.valueOf(100), 0);
+        window.record(BigDecimal.valueOf(50.5), 5 * HOUR);
+
+        assertEquals(2, window.getCount(23 * HOUR));
+        assertEquals(0, BigDecimal.valueOf(150.5).compareTo(window.getAmount(23 * HOUR)));
+    }
+
+    @Test
+    public void totals_oldBucketsExpire() {
+        WithdrawalWindow window = new WithdrawalWindow();
+        window.record(BigDecimal.valueOf(100), 0);
+        window.record(BigDecimal.valueOf(50), 5 * HOUR);
+
+        assertEquals(1, window.getCount(25 * HOUR)); // the first hour has left the window
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(window.getAmount(25 * HOUR)));
+
+        assertEquals(0, window.getCount(100 * HOUR));
+        assertEquals(0, BigDecimal.ZERO.compareTo(window.getAmount(100 * HOUR)));
+    }
+
+    @Test
+    public void record_afterLongIdle_reusesRing() {
+        WithdrawalWindow window = new WithdrawalWindow();
+        for (int hour = 0; hour < 24; hour++) {
+            window.record(BigDecimal.ONE, hour * HOUR);
+        }
+        assertEquals(24, window.getCount(23 * HOUR));
+
+        window.record(BigDecimal.TEN, 1000 * HOUR);
+        assertEquals(1, window.getCount(1000 * HOUR));
+        assertEquals(0, BigDecimal.TEN.compareTo(window.getAmount(1000 * HOUR)));
+    }
+
+    @Test
+    public void record_backdated_countedInItsOwnBucket() {
+        WithdrawalWindow window = new WithdrawalWindow();
+        window.record(BigDecimal.valueOf(100), 30 * HOUR);
+        window.record(BigDecimal.valueOf(10), 2 * HOUR); // already out of the window, not counted
+        window.record(BigDecimal.valueOf(20), 10 * HOUR);
+
+        assertEquals(2, window.getCount(30 * HOUR));
+        assertEquals(0, BigDecimal.valueOf(120).compareTo(window.getAmount(30 * HOUR)));
+        assertEquals(1, window.getCount(12 * HOUR)); // a window ending before the newest withdrawal
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(window.getAmount(12 * HOUR)));
+        assertEquals(1, window.getCount(34 * HOUR)); // the backdated withdrawal expires on its own time
+    }
+}